@@ -1,30 +1,101 @@
 package com.example.demo;
 import com.example.demo.Service.CertificateTemplateService;
 import com.example.demo.model.CertificateTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Warms template previews in the background once the application is ready. Templates are
+ * rendered a few at a time on a dedicated pool; templates whose source is unchanged since
+ * their last preview are skipped cheaply by the service. Progress is exposed through
+ * {@link com.example.demo.config.PreviewWarmupHealthIndicator}.
+ */
 @Component
 public class ApplicationStartup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationStartup.class);
+
+    public enum WarmupState { PENDING, RUNNING, FINISHED, FAILED }
+
     @Autowired
     private CertificateTemplateService templateService;
 
+    private final ExecutorService warmupPool;
+
+    private volatile WarmupState state = WarmupState.PENDING;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public ApplicationStartup(@Value("${certificates.preview-warmup.concurrency:2}") int concurrency) {
+        AtomicInteger counter = new AtomicInteger();
+        this.warmupPool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "preview-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
+        state = WarmupState.RUNNING;
+        CompletableFuture.runAsync(this::warmPreviews, warmupPool);
+    }
+
+    private void warmPreviews() {
+        List<CertificateTemplate> templates;
+        try {
+            templates = templateService.getAllTemplates();
+        } catch (Exception e) {
+            logger.error("Error loading templates for preview warm-up", e);
+            state = WarmupState.FAILED;
+            return;
+        }
+        total.set(templates.size());
+
+        CompletableFuture<?>[] tasks = templates.stream()
+                .map(template -> CompletableFuture.runAsync(() -> warmPreview(template), warmupPool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            state = WarmupState.FINISHED;
+            logger.info("Preview warm-up finished: {} templates, {} failed", total.get(), failed.get());
+        });
+    }
+
+    private void warmPreview(CertificateTemplate template) {
         try {
-            List<CertificateTemplate> templates = templateService.getAllTemplates();
-            for (CertificateTemplate template : templates) {
-                if (template.getPreviewImageUrl() == null) {
-                    System.out.println("Generating preview for template: " + template.getName());
-                    templateService.generateAndUploadPreviewImage(template.getId());
-                }
-            }
+            templateService.generateAndUploadPreviewImage(template.getId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
         } catch (Exception e) {
-            System.err.println("Error generating previews on startup: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error generating preview for template {}: {}", template.getName(), e.getMessage());
+            failed.incrementAndGet();
+        } finally {
+            completed.incrementAndGet();
         }
     }
+
+    public WarmupState getState() { return state; }
+    public int getTotal() { return total.get(); }
+    public int getCompleted() { return completed.get(); }
+    public int getFailed() { return failed.get(); }
+
+    @PreDestroy
+    public void shutdown() {
+        warmupPool.shutdownNow();
+    }
 }
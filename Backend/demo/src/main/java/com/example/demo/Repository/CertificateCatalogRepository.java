@@ -0,0 +1,52 @@
+package com.example.demo.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.CertificateCatalogEntry;
+
+public interface CertificateCatalogRepository extends JpaRepository<CertificateCatalogEntry, Long> {
+
+    // Keyset pages: pass the last id seen as afterId, 0 for the first page
+    List<CertificateCatalogEntry> findByStudentKeyAndIdGreaterThanOrderByIdAsc(String studentKey, Long afterId, Pageable page);
+
+    List<CertificateCatalogEntry> findBySubjectKeyAndIdGreaterThanOrderByIdAsc(String subjectKey, Long afterId, Pageable page);
+
+    List<CertificateCatalogEntry> findBySubjectKeyAndStudentKeyAndIdGreaterThanOrderByIdAsc(String subjectKey, String studentKey,
+                                                                                           Long afterId, Pageable page);
+
+    List<CertificateCatalogEntry> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into certificate_catalog "
+            + "(user_id, student_name, student_key, subject_key, subject, template_id, percentage, issued_on, "
+            + "template_version, object_path, uploaded_at) "
+            + "values (:userId, :studentName, :studentKey, :subjectKey, :subject, :templateId, :percentage, :issuedOn, "
+            + ":templateVersion, :objectPath, :uploadedAt) "
+            + "on conflict (object_path) do update set "
+            // a backfill row (no user id) must not erase what a real upload recorded
+            + "student_name = case when excluded.user_id is null then certificate_catalog.student_name else excluded.student_name end, "
+            + "subject = case when excluded.user_id is null then certificate_catalog.subject else excluded.subject end, "
+            + "user_id = coalesce(excluded.user_id, certificate_catalog.user_id), "
+            + "template_id = coalesce(excluded.template_id, certificate_catalog.template_id), "
+            + "percentage = coalesce(excluded.percentage, certificate_catalog.percentage), "
+            + "issued_on = coalesce(excluded.issued_on, certificate_catalog.issued_on), "
+            + "template_version = case when excluded.user_id is null then certificate_catalog.template_version "
+            + "else excluded.template_version end, "
+            + "uploaded_at = excluded.uploaded_at")
+    void upsert(@Param("userId") Long userId, @Param("studentName") String studentName,
+                @Param("studentKey") String studentKey, @Param("subjectKey") String subjectKey,
+                @Param("subject") String subject, @Param("templateId") Long templateId,
+                @Param("percentage") String percentage, @Param("issuedOn") LocalDate issuedOn,
+                @Param("templateVersion") Integer templateVersion,
+                @Param("objectPath") String objectPath, @Param("uploadedAt") Instant uploadedAt);
+}
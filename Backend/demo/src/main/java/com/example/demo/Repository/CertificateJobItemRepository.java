@@ -0,0 +1,39 @@
+package com.example.demo.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.CertificateJobItemSummary;
+import com.example.demo.model.CertificateJobItem;
+
+public interface CertificateJobItemRepository extends JpaRepository<CertificateJobItem, Long> {
+
+    List<CertificateJobItem> findByJobIdAndStatusOrderByItemIndex(UUID jobId, CertificateJobItem.Status status);
+
+    // Keyset pages of item outcomes; a null status lists every item
+    @Query("select new com.example.demo.dto.CertificateJobItemSummary(i.itemIndex, i.userId, i.subject, i.status, "
+            + "i.error, i.finishedAt) from CertificateJobItem i "
+            + "where i.jobId = :jobId and (:status is null or i.status = :status) and i.itemIndex > :after "
+            + "order by i.itemIndex asc")
+    List<CertificateJobItemSummary> findSummaries(@Param("jobId") UUID jobId,
+                                                  @Param("status") CertificateJobItem.Status status,
+                                                  @Param("after") int after, Pageable page);
+
+    long countByJobIdAndFinishedAtGreaterThanEqual(UUID jobId, Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateJobItem i set i.status = :status, i.error = :error, i.finishedAt = :finishedAt "
+            + "where i.jobId = :jobId and i.itemIndex = :itemIndex")
+    void markFinished(@Param("jobId") UUID jobId, @Param("itemIndex") int itemIndex,
+                      @Param("status") CertificateJobItem.Status status, @Param("error") String error,
+                      @Param("finishedAt") Instant finishedAt);
+}
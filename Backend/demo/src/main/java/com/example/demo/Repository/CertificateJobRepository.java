@@ -0,0 +1,64 @@
+package com.example.demo.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.CertificateJob;
+
+public interface CertificateJobRepository extends JpaRepository<CertificateJob, UUID> {
+
+    List<CertificateJob> findByStatusIn(Collection<CertificateJob.Status> statuses);
+
+    // One instance wins: the update only matches while nobody else holds a live lease
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.leaseUntil = :until, j.leaseOwner = :owner "
+            + "where j.id = :id and j.status in :statuses and (j.leaseUntil is null or j.leaseUntil < :now)")
+    int claim(@Param("id") UUID id, @Param("statuses") Collection<CertificateJob.Status> statuses,
+              @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.status = :status, j.startedAt = :startedAt "
+            + "where j.id = :id and j.leaseOwner = :owner")
+    int start(@Param("id") UUID id, @Param("owner") String owner, @Param("status") CertificateJob.Status status,
+              @Param("startedAt") Instant startedAt);
+
+    // Returns 0 once another instance has taken the job over, which tells the owner to stop
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.leaseUntil = :until where j.id = :id and j.leaseOwner = :owner")
+    int renewLease(@Param("id") UUID id, @Param("owner") String owner, @Param("until") Instant until);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.leaseUntil = :until where j.id in :ids and j.leaseOwner = :owner")
+    int releaseLeases(@Param("ids") Collection<UUID> ids, @Param("owner") String owner, @Param("until") Instant until);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.status = :status, j.lastError = coalesce(:error, j.lastError), "
+            + "j.finishedAt = :finishedAt, j.leaseUntil = null, j.leaseOwner = null "
+            + "where j.id = :id and j.leaseOwner = :owner")
+    int finish(@Param("id") UUID id, @Param("owner") String owner, @Param("status") CertificateJob.Status status,
+               @Param("error") String error, @Param("finishedAt") Instant finishedAt);
+
+    // Counters are bumped in SQL so concurrent pipeline threads never overwrite each other
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.completedItems = j.completedItems + 1 where j.id = :id")
+    void incrementCompleted(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateJob j set j.failedItems = j.failedItems + 1, j.lastError = :error where j.id = :id")
+    void incrementFailed(@Param("id") UUID id, @Param("error") String error);
+}
@@ -1,8 +1,29 @@
 package com.example.demo.Repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.CertificateTemplate;
 
 public interface CertificateTemplateRepository extends JpaRepository<CertificateTemplate, Long> {
+
+    Optional<CertificateTemplate> findFirstByNameOrderByIdAsc(String name);
+
+    // The swap to a new version: one row update, so readers see either the old or the new version
+    @Transactional
+    @Modifying
+    @Query("update CertificateTemplate t set t.currentVersion = :version where t.id = :id")
+    int activateVersion(@Param("id") Long id, @Param("version") int version);
+
+    // Same, but never moves a template back to an older version
+    @Transactional
+    @Modifying
+    @Query("update CertificateTemplate t set t.currentVersion = :version where t.id = :id "
+            + "and (t.currentVersion is null or t.currentVersion < :version)")
+    int activateIfNewer(@Param("id") Long id, @Param("version") int version);
 }
\ No newline at end of file
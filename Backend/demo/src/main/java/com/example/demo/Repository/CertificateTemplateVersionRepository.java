@@ -0,0 +1,30 @@
+package com.example.demo.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.CertificateTemplateVersion;
+
+public interface CertificateTemplateVersionRepository extends JpaRepository<CertificateTemplateVersion, Long> {
+
+    Optional<CertificateTemplateVersion> findByTemplateIdAndVersion(Long templateId, int version);
+
+    Optional<CertificateTemplateVersion> findFirstByTemplateIdOrderByVersionDesc(Long templateId);
+
+    List<CertificateTemplateVersion> findByTemplateIdOrderByVersionDesc(Long templateId);
+
+    @Transactional
+    @Modifying
+    @Query("update CertificateTemplateVersion v set v.status = :status, v.error = :error, "
+            + "v.activatedAt = :activatedAt where v.templateId = :templateId and v.version = :version")
+    int markCompiled(@Param("templateId") Long templateId, @Param("version") int version,
+                     @Param("status") CertificateTemplateVersion.Status status, @Param("error") String error,
+                     @Param("activatedAt") Instant activatedAt);
+}
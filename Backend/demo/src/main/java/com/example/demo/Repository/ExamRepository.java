@@ -1,9 +1,32 @@
 package com.example.demo.Repository;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
+import com.example.demo.dto.ExamSummary;
 import com.example.demo.model.Exam;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, UUID> {
-}
\ No newline at end of file
+
+    // Keyset pages over (date, id): pass the last row seen as afterDate/afterId
+    @Query("select new com.example.demo.dto.ExamSummary(e.id, e.title, e.subject, e.date, e.time) from Exam e "
+            + "where e.date between :from and :to and (:subject is null or e.subject = :subject) "
+            + "and (e.date > :afterDate or (e.date = :afterDate and e.id > :afterId)) "
+            + "order by e.date asc, e.id asc")
+    List<ExamSummary> findSummariesAscending(@Param("subject") String subject, @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to, @Param("afterDate") LocalDate afterDate,
+                                             @Param("afterId") UUID afterId, Pageable page);
+
+    @Query("select new com.example.demo.dto.ExamSummary(e.id, e.title, e.subject, e.date, e.time) from Exam e "
+            + "where e.date between :from and :to and (:subject is null or e.subject = :subject) "
+            + "and (e.date < :afterDate or (e.date = :afterDate and e.id < :afterId)) "
+            + "order by e.date desc, e.id desc")
+    List<ExamSummary> findSummariesDescending(@Param("subject") String subject, @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to, @Param("afterDate") LocalDate afterDate,
+                                              @Param("afterId") UUID afterId, Pageable page);
+}
@@ -0,0 +1,213 @@
+package com.example.demo.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.VirtualThreads;
+import com.example.demo.dto.CertificateRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Two-stage pipeline for certificate batches: PDFs are rendered on a CPU-sized pool and
+ * handed to a separate I/O pool for upload. The submitting thread blocks once
+ * {@code render-threads + max-pending-uploads} items are in flight, so rendered PDFs
+ * never pile up in memory faster than storage accepts them.
+ *
+ * <p>{@code certificates.batch.stage} times the render and upload stages of each item and
+ * {@code certificates.batch.backpressure} the submitter's wait for a free slot, so a slow batch
+ * shows whether it is CPU- or storage-bound.
+ */
+@Component
+public class CertificateBatchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateBatchEngine.class);
+
+    @FunctionalInterface
+    public interface RenderStage {
+        RenderedCertificate render(CertificateRequest request) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface UploadStage {
+        void upload(RenderedCertificate rendered) throws Exception;
+    }
+
+    /** Per-item callbacks, invoked from pool threads. */
+    public interface ItemListener {
+        ItemListener NONE = new ItemListener() {};
+
+        default void onSuccess(int index, CertificateRequest request) {}
+
+        default void onFailure(int index, CertificateRequest request, Throwable error) {}
+    }
+
+    public static class RenderedCertificate {
+        private final CertificateRequest request;
+        private final String studentName;
+        private final LocalDate issuedOn;
+        private final byte[] pdf;
+        private final String contentKey;
+
+        public RenderedCertificate(CertificateRequest request, String studentName, LocalDate issuedOn, byte[] pdf) {
+            this(request, studentName, issuedOn, pdf, null);
+        }
+
+        /** {@code pdf} is null when the content behind {@code contentKey} is already in storage. */
+        public RenderedCertificate(CertificateRequest request, String studentName, LocalDate issuedOn, byte[] pdf,
+                                   String contentKey) {
+            this.request = request;
+            this.studentName = studentName;
+            this.issuedOn = issuedOn;
+            this.pdf = pdf;
+            this.contentKey = contentKey;
+        }
+
+        public CertificateRequest getRequest() { return request; }
+        public String getStudentName() { return studentName; }
+        /** The date printed on the certificate. */
+        public LocalDate getIssuedOn() { return issuedOn; }
+        public byte[] getPdf() { return pdf; }
+        public String getContentKey() { return contentKey; }
+        public boolean isAlreadyStored() { return pdf == null; }
+    }
+
+    public static class BatchResult {
+        private final int total;
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+        public BatchResult(int total) {
+            this.total = total;
+        }
+
+        public int getTotal() { return total; }
+        public int getSucceeded() { return succeeded.get(); }
+        public int getFailed() { return failures.size(); }
+        public List<String> getFailures() { return failures; }
+    }
+
+    private final int renderThreads;
+    private final int maxPendingUploads;
+    private final ExecutorService renderPool;
+    private final ExecutorService uploadPool;
+
+    private final Timer renderTimer;
+    private final Timer uploadTimer;
+    private final Timer backpressureTimer;
+    private final Counter succeeded;
+    private final Counter failed;
+
+    public CertificateBatchEngine(MeterRegistry meterRegistry,
+            @Value("${certificates.batch.render-threads:0}") int renderThreads,
+            @Value("${certificates.batch.upload-threads:8}") int uploadThreads,
+            @Value("${certificates.batch.max-pending-uploads:32}") int maxPendingUploads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.renderThreads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        this.maxPendingUploads = maxPendingUploads;
+        this.renderPool = Executors.newFixedThreadPool(this.renderThreads, namedThreads("cert-render-"));
+        // Uploads only wait on storage; rendering stays on the CPU-sized platform pool either way
+        this.uploadPool = virtualThreads && VirtualThreads.isSupported()
+                ? VirtualThreads.newPerTaskExecutor("cert-upload-")
+                : Executors.newFixedThreadPool(uploadThreads, namedThreads("cert-upload-"));
+
+        this.renderTimer = Timer.builder("certificates.batch.stage").tag("stage", "render").register(meterRegistry);
+        this.uploadTimer = Timer.builder("certificates.batch.stage").tag("stage", "upload").register(meterRegistry);
+        this.backpressureTimer = Timer.builder("certificates.batch.backpressure")
+                .description("Time the submitter waited for a render or upload slot")
+                .register(meterRegistry);
+        this.succeeded = Counter.builder("certificates.batch.items").tag("outcome", "success").register(meterRegistry);
+        this.failed = Counter.builder("certificates.batch.items").tag("outcome", "failure").register(meterRegistry);
+    }
+
+    public BatchResult run(List<CertificateRequest> requests, RenderStage renderStage, UploadStage uploadStage,
+                           ItemListener listener) throws InterruptedException {
+        BatchResult result = new BatchResult(requests.size());
+        Semaphore window = new Semaphore(renderThreads + maxPendingUploads);
+        CountDownLatch done = new CountDownLatch(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            CertificateRequest request = requests.get(i);
+            long waitStart = System.nanoTime();
+            window.acquire();
+            backpressureTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+            CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return renderTimer.recordCallable(() -> renderStage.render(request));
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    }, renderPool)
+                    .thenAcceptAsync(rendered -> {
+                        try {
+                            uploadTimer.recordCallable(() -> {
+                                uploadStage.upload(rendered);
+                                return null;
+                            });
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    }, uploadPool)
+                    .whenComplete((ignored, error) -> {
+                        try {
+                            if (error == null) {
+                                result.succeeded.incrementAndGet();
+                                succeeded.increment();
+                                listener.onSuccess(index, request);
+                            } else {
+                                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                        ? error.getCause() : error;
+                                logger.warn("Certificate {} (user {}, {}) failed: {}",
+                                        index, request.getUserId(), request.getSubject(), cause.getMessage());
+                                failed.increment();
+                                result.failures.add("user " + request.getUserId() + ": " + cause.getMessage());
+                                listener.onFailure(index, request, cause);
+                            }
+                        } finally {
+                            window.release();
+                            done.countDown();
+                        }
+                    });
+        }
+
+        done.await();
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdown();
+        uploadPool.shutdown();
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.VirtualThreads;
+import com.example.demo.model.CertificateCatalogEntry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Streams a ZIP of catalogued certificates straight into a response. Catalog rows are read a
+ * keyset page at a time, at most {@code parallelism} PDFs are fetched at once, and each one is
+ * written to the archive as soon as it arrives, so neither the archive nor the whole selection
+ * is ever held in memory or on disk. A PDF comes from the local render cache when it has the
+ * uploaded bytes, otherwise from storage. If storage no longer has it, it is rendered again
+ * from what the catalog recorded at issue and put back in storage for the next download.
+ * Certificates that could not be fetched or reproduced are listed in a {@code MISSING.txt} entry.
+ */
+@Service
+public class CertificateBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateBundleService.class);
+
+    private static final String PATH_PREFIX = "certificates/";
+    private static final String MISSING_ENTRY = "MISSING.txt";
+
+    /** One keyset page of the selection; {@code afterId} is 0 for the first page. */
+    @FunctionalInterface
+    public interface EntrySource {
+        List<CertificateCatalogEntry> page(long afterId, int limit);
+    }
+
+    public static class BundleResult {
+        private final int entries;
+        private final List<String> missing;
+        private final boolean truncated;
+
+        BundleResult(int entries, List<String> missing, boolean truncated) {
+            this.entries = entries;
+            this.missing = missing;
+            this.truncated = truncated;
+        }
+
+        public int getEntries() { return entries; }
+        public List<String> getMissing() { return missing; }
+        public boolean isTruncated() { return truncated; }
+    }
+
+    private static final class Fetched {
+        private final CertificateCatalogEntry entry;
+        private final byte[] pdf;
+
+        Fetched(CertificateCatalogEntry entry, byte[] pdf) {
+            this.entry = entry;
+            this.pdf = pdf;
+        }
+    }
+
+    private static final class FetchFailedException extends Exception {
+        private final CertificateCatalogEntry entry;
+
+        FetchFailedException(CertificateCatalogEntry entry, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.entry = entry;
+        }
+    }
+
+    private final ObjectStorage storage;
+    private final PdfContentCache pdfCache;
+    private final CertificateCatalogService catalogService;
+    private final CertificateTemplateService templateService;
+    private final int parallelism;
+    private final int maxEntries;
+    private final ExecutorService fetchPool;
+
+    private final Counter fromCache;
+    private final Counter fromStorage;
+    private final Counter rerendered;
+    private final Counter missingEntries;
+
+    public CertificateBundleService(ObjectStorage storage, PdfContentCache pdfCache,
+            CertificateCatalogService catalogService, CertificateTemplateService templateService,
+            MeterRegistry meterRegistry,
+            @Value("${certificates.zip.parallelism:8}") int parallelism,
+            @Value("${certificates.zip.max-entries:5000}") int maxEntries,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.storage = storage;
+        this.pdfCache = pdfCache;
+        this.catalogService = catalogService;
+        this.templateService = templateService;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxEntries = maxEntries;
+        // Shared by all downloads; each one still keeps at most `parallelism` fetches in flight
+        this.fetchPool = virtualThreads && VirtualThreads.isSupported()
+                ? VirtualThreads.newPerTaskExecutor("cert-zip-")
+                : Executors.newFixedThreadPool(this.parallelism * 2, namedThreads("cert-zip-"));
+
+        this.fromCache = entriesCounter(meterRegistry, "cache");
+        this.fromStorage = entriesCounter(meterRegistry, "storage");
+        this.rerendered = entriesCounter(meterRegistry, "render");
+        this.missingEntries = entriesCounter(meterRegistry, "missing");
+    }
+
+    public EntrySource byStudent(String studentKey) {
+        return (afterId, limit) -> catalogService.findByStudent(studentKey, afterId, limit);
+    }
+
+    public EntrySource bySubject(String subjectKey) {
+        return (afterId, limit) -> catalogService.findBySubject(subjectKey, afterId, limit);
+    }
+
+    /** One student's certificates in a subject. */
+    public EntrySource bySubjectForStudent(String subjectKey, String studentKey) {
+        return (afterId, limit) -> catalogService.findBySubjectForStudent(subjectKey, studentKey, afterId, limit);
+    }
+
+    /**
+     * Writes the ZIP to {@code out}, which is flushed after every entry but not closed. If the
+     * client goes away the write fails and fetches still queued for this download are cancelled.
+     */
+    public BundleResult writeZip(EntrySource source, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs are mostly compressed streams already; don't spend CPU squeezing them further
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        CompletionService<Fetched> completion = new ExecutorCompletionService<>(fetchPool);
+        Set<Future<Fetched>> inFlight = new HashSet<>();
+        Deque<CertificateCatalogEntry> queued = new ArrayDeque<>();
+        List<String> missing = new ArrayList<>();
+        long afterId = 0;
+        boolean exhausted = false;
+        int submitted = 0;
+        int written = 0;
+
+        try {
+            while (true) {
+                while (inFlight.size() < parallelism && submitted < maxEntries) {
+                    if (queued.isEmpty() && !exhausted) {
+                        List<CertificateCatalogEntry> page = source.page(afterId, CertificateCatalogService.MAX_PAGE_SIZE);
+                        exhausted = page.size() < CertificateCatalogService.MAX_PAGE_SIZE;
+                        if (!page.isEmpty()) {
+                            afterId = page.get(page.size() - 1).getId();
+                            queued.addAll(page);
+                        }
+                    }
+                    CertificateCatalogEntry entry = queued.poll();
+                    if (entry == null) {
+                        break;
+                    }
+                    inFlight.add(completion.submit(() -> fetch(entry)));
+                    submitted++;
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+
+                Future<Fetched> done = completion.take();
+                inFlight.remove(done);
+                try {
+                    Fetched fetched = done.get();
+                    zip.putNextEntry(new ZipEntry(entryName(fetched.entry)));
+                    zip.write(fetched.pdf);
+                    zip.closeEntry();
+                    zip.flush();
+                    written++;
+                } catch (ExecutionException e) {
+                    FetchFailedException failure = (FetchFailedException) e.getCause();
+                    missingEntries.increment();
+                    missing.add(entryName(failure.entry) + ": " + failure.getMessage());
+                    logger.warn("Leaving {} out of certificate bundle: {}", failure.entry.getObjectPath(), failure.getMessage());
+                }
+            }
+
+            boolean truncated = submitted >= maxEntries
+                    && (!queued.isEmpty() || (!exhausted && !source.page(afterId, 1).isEmpty()));
+            if (!missing.isEmpty() || truncated) {
+                StringBuilder note = new StringBuilder();
+                missing.forEach(line -> note.append(line).append('\n'));
+                if (truncated) {
+                    note.append("Bundle stopped at ").append(maxEntries)
+                            .append(" certificates; narrow the selection to get the rest.\n");
+                }
+                zip.putNextEntry(new ZipEntry(MISSING_ENTRY));
+                zip.write(note.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+            return new BundleResult(written, missing, truncated);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Certificate bundle interrupted");
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Fetched fetch(CertificateCatalogEntry entry) throws FetchFailedException {
+        String path = entry.getObjectPath();
+        try {
+            byte[] cached = pdfCache.getUploaded(path).orElse(null);
+            if (cached != null) {
+                fromCache.increment();
+                return new Fetched(entry, cached);
+            }
+            try {
+                byte[] stored = ObjectStorage.await(storage.downloadAsync(path));
+                fromStorage.increment();
+                return new Fetched(entry, stored);
+            } catch (StorageException e) {
+                // Supabase reports a missing object as 400 or 404 depending on the version
+                if (e.getStatusCode() != 404 && e.getStatusCode() != 400) {
+                    throw e;
+                }
+            }
+            byte[] pdf = templateService.regeneratePdf(entry);
+            rerendered.increment();
+            // Not awaited: the bundle has the bytes, and a failed restore is retried next time
+            storage.uploadAsync(path, "application/pdf", pdf).whenComplete((url, failure) -> {
+                if (failure != null) {
+                    logger.warn("Could not restore {} to storage: {}", path, failure.getMessage());
+                }
+            });
+            return new Fetched(entry, pdf);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException(entry, e);
+        } catch (IOException | RuntimeException e) {
+            throw new FetchFailedException(entry, e);
+        }
+    }
+
+    private static String entryName(CertificateCatalogEntry entry) {
+        String path = entry.getObjectPath();
+        return path.startsWith(PATH_PREFIX) ? path.substring(PATH_PREFIX.length()) : path;
+    }
+
+    private static Counter entriesCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("certificates.zip.entries").tag("source", source).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchPool.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
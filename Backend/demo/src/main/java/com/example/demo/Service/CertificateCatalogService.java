@@ -0,0 +1,118 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.Repository.CertificateCatalogRepository;
+import com.example.demo.Repository.UserRepository;
+import com.example.demo.dto.CertificateRequest;
+import com.example.demo.model.CertificateCatalogEntry;
+import com.example.demo.model.User;
+
+@Service
+public class CertificateCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateCatalogService.class);
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private CertificateCatalogRepository catalogRepository;
+
+    @Autowired
+    private ObjectStorage storage;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /** Records an upload, with what it takes to render the same certificate again. */
+    public void record(CertificateRequest request, String studentName, LocalDate issuedOn, String objectPath) {
+        Long templateId = null;
+        try {
+            templateId = Long.parseLong(request.getTemplateName());
+        } catch (NumberFormatException ignored) {
+            // template ids are validated before rendering; keep the entry regardless
+        }
+        catalogRepository.upsert(request.getUserId(), studentName,
+                CertificateTemplateService.safePathSegment(studentName),
+                CertificateTemplateService.safePathSegment(request.getSubject()), request.getSubject(),
+                templateId, request.getPercentage(), issuedOn, request.getTemplateVersion(), objectPath, Instant.now());
+    }
+
+    public List<CertificateCatalogEntry> findByStudent(String studentKey, long afterId, int limit) {
+        return catalogRepository.findByStudentKeyAndIdGreaterThanOrderByIdAsc(studentKey, afterId, page(limit));
+    }
+
+    public List<CertificateCatalogEntry> findBySubject(String subjectKey, long afterId, int limit) {
+        return catalogRepository.findBySubjectKeyAndIdGreaterThanOrderByIdAsc(subjectKey, afterId, page(limit));
+    }
+
+    public List<CertificateCatalogEntry> findBySubjectForStudent(String subjectKey, String studentKey, long afterId,
+                                                                 int limit) {
+        return catalogRepository.findBySubjectKeyAndStudentKeyAndIdGreaterThanOrderByIdAsc(subjectKey, studentKey,
+                afterId, page(limit));
+    }
+
+    /** The student key the user's own certificates are filed under, or null if the user has no name. */
+    public String studentKeyOf(Long userId) {
+        return userRepository.findById(userId)
+                .map(User::getName)
+                .filter(name -> !name.isBlank())
+                .map(CertificateTemplateService::safePathSegment)
+                .orElse(null);
+    }
+
+    public List<CertificateCatalogEntry> findAll(long afterId, int limit) {
+        return catalogRepository.findByIdGreaterThanOrderByIdAsc(afterId, page(limit));
+    }
+
+    public String publicUrl(CertificateCatalogEntry entry) {
+        return storage.publicUrl(entry.getObjectPath());
+    }
+
+    /**
+     * Backfills the catalog from a bucket listing, for certificates uploaded before the
+     * catalog existed. Objects are expected at certificates/{student}/{subject}.pdf. Student
+     * folders are listed one by one when the storage listing returns them as entries of their
+     * own instead of descending into them, so the backfill does not depend on how deep a
+     * backend lists.
+     */
+    public int rebuildFromStorage() throws IOException, InterruptedException {
+        int recorded = 0;
+        Set<String> seen = new HashSet<>();
+        Deque<String> folders = new ArrayDeque<>(List.of("certificates/"));
+        while (!folders.isEmpty()) {
+            for (String path : storage.list(folders.poll())) {
+                String[] parts = path.split("/");
+                if (parts.length == 2 && !parts[1].endsWith(".pdf")) {
+                    folders.add(path + "/");
+                    continue;
+                }
+                if (parts.length != 3 || !parts[2].endsWith(".pdf") || !seen.add(path)) {
+                    continue;
+                }
+                String subjectKey = parts[2].substring(0, parts[2].length() - ".pdf".length());
+                catalogRepository.upsert(null, parts[1], parts[1], subjectKey, subjectKey, null, null, null, null,
+                        path, Instant.now());
+                recorded++;
+            }
+        }
+        logger.info("Certificate catalog rebuilt from storage: {} entries", recorded);
+        return recorded;
+    }
+
+    private static PageRequest page(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.demo.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.Repository.CertificateJobItemRepository;
+import com.example.demo.Repository.CertificateJobRepository;
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.dto.CertificateJobItemPage;
+import com.example.demo.dto.CertificateJobItemSummary;
+import com.example.demo.dto.CertificateJobStatus;
+import com.example.demo.dto.CertificateRequest;
+import com.example.demo.model.CertificateJob;
+import com.example.demo.model.CertificateJobItem;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs certificate batches in the background. Every item is persisted up front with its
+ * own status, so a job interrupted by a restart is picked up again and only the items that
+ * never finished are rendered and uploaded.
+ *
+ * <p>An instance runs a job only after claiming its lease with a conditional update, and
+ * renews the lease while the job runs, so with several replicas each job is processed once.
+ * Unfinished jobs whose lease has run out (their instance died) are taken over by the next
+ * periodic scan on any instance. The lease records its owner and every renewal and status
+ * write is conditional on it, so an instance that stalled past its lease and lost the job
+ * finds out at the next renewal, cancels its run and leaves the job to the new owner.
+ */
+@Service
+public class CertificateJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateJobService.class);
+    private static final int MAX_ERROR_LENGTH = 255;
+    public static final int MAX_ITEMS_PAGE_SIZE = 500;
+
+    @Autowired
+    private CertificateJobRepository jobRepository;
+
+    @Autowired
+    private CertificateJobItemRepository itemRepository;
+
+    @Autowired
+    private CertificateTemplateService certificateService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final Set<CertificateJob.Status> UNFINISHED =
+            EnumSet.of(CertificateJob.Status.QUEUED, CertificateJob.Status.RUNNING);
+
+    private final ExecutorService jobExecutor;
+    private final ScheduledExecutorService leaseScheduler;
+    private final Duration lease;
+
+    // Identifies this instance as a lease owner
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Jobs this instance has claimed and not yet finished
+    private final Set<UUID> owned = ConcurrentHashMap.newKeySet();
+    // The thread running each claimed job, so a lost lease can interrupt it
+    private final ConcurrentMap<UUID, Thread> runners = new ConcurrentHashMap<>();
+    // Claimed jobs whose lease another instance has since taken over
+    private final Set<UUID> lost = ConcurrentHashMap.newKeySet();
+
+    public CertificateJobService(@Value("${certificates.jobs.concurrency:2}") int concurrency,
+                                 @Value("${certificates.jobs.lease-seconds:120}") long leaseSeconds) {
+        this.jobExecutor = Executors.newFixedThreadPool(concurrency, CertificateBatchEngine.namedThreads("cert-job-"));
+        this.leaseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cert-job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lease = Duration.ofSeconds(Math.max(10, leaseSeconds));
+    }
+
+    private CertificateJob createJob(List<CertificateRequest> requests) {
+        certificateService.pinTemplateVersions(requests);
+        CertificateJob job = new CertificateJob();
+        job.setStatus(CertificateJob.Status.QUEUED);
+        job.setTotalItems(requests.size());
+        job.setCreatedAt(Instant.now());
+        job = jobRepository.save(job);
+
+        List<CertificateJobItem> items = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CertificateRequest request = requests.get(i);
+            CertificateJobItem item = new CertificateJobItem();
+            item.setJobId(job.getId());
+            item.setItemIndex(i);
+            item.setUserId(request.getUserId());
+            item.setSubject(request.getSubject());
+            item.setPercentage(request.getPercentage());
+            item.setTemplateName(request.getTemplateName());
+            item.setTemplateVersion(request.getTemplateVersion());
+            item.setStatus(CertificateJobItem.Status.PENDING);
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+        return job;
+    }
+
+    /**
+     * Persists the job and its items in one transaction, then schedules it and returns without
+     * waiting. Scheduling happens after the commit, so the job never runs before its items exist
+     * and a failed insert leaves no empty job behind to be resumed.
+     */
+    public CertificateJob submit(List<CertificateRequest> requests) {
+        CertificateJob job = transactionTemplate.execute(status -> createJob(requests));
+        UUID jobId = job.getId();
+        if (claim(jobId)) {
+            schedule(jobId);
+        }
+        return job;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeases() {
+        long renewSeconds = Math.max(1, lease.toSeconds() / 3);
+        leaseScheduler.scheduleWithFixedDelay(this::renewLeases, renewSeconds, renewSeconds, TimeUnit.SECONDS);
+        leaseScheduler.scheduleWithFixedDelay(this::resumeInterruptedJobs, 0, lease.toSeconds() / 2, TimeUnit.SECONDS);
+    }
+
+    /** Claims and runs unfinished jobs that no live instance holds. */
+    public void resumeInterruptedJobs() {
+        try {
+            for (CertificateJob job : jobRepository.findByStatusIn(UNFINISHED)) {
+                UUID jobId = job.getId();
+                if (owned.contains(jobId) || !claim(jobId)) {
+                    continue;
+                }
+                logger.info("Resuming certificate job {} ({} of {} items finished)",
+                        jobId, job.getCompletedItems() + job.getFailedItems(), job.getTotalItems());
+                schedule(jobId);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not scan for interrupted certificate jobs: {}", e.getMessage());
+        }
+    }
+
+    private boolean claim(UUID jobId) {
+        Instant now = Instant.now();
+        if (jobRepository.claim(jobId, UNFINISHED, instanceId, now, now.plus(lease)) == 0) {
+            return false;
+        }
+        owned.add(jobId);
+        return true;
+    }
+
+    private void schedule(UUID jobId) {
+        jobExecutor.submit(() -> runJob(jobId));
+    }
+
+    void renewLeases() {
+        Instant until = Instant.now().plus(lease);
+        for (UUID jobId : Set.copyOf(owned)) {
+            try {
+                if (jobRepository.renewLease(jobId, instanceId, until) == 0) {
+                    loseLease(jobId);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew the lease on certificate job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private void loseLease(UUID jobId) {
+        if (!owned.contains(jobId) || !lost.add(jobId)) {
+            return;
+        }
+        logger.warn("Lost the lease on certificate job {} to another instance; stopping it here", jobId);
+        // Atomic with the removal in runJob, so only a thread still running this job is interrupted.
+        // A job not started yet needs nothing: its conditional start finds another owner.
+        runners.computeIfPresent(jobId, (id, thread) -> {
+            thread.interrupt();
+            return thread;
+        });
+    }
+
+    // Only called for jobs this instance has claimed
+    void runJob(UUID jobId) {
+        runners.put(jobId, Thread.currentThread());
+        try {
+            runClaimedJob(jobId);
+        } finally {
+            runners.remove(jobId);
+            owned.remove(jobId);
+            lost.remove(jobId);
+        }
+    }
+
+    private void runClaimedJob(UUID jobId) {
+        CertificateJob.Status status;
+        String error = null;
+        try {
+            List<CertificateJobItem> pending =
+                    itemRepository.findByJobIdAndStatusOrderByItemIndex(jobId, CertificateJobItem.Status.PENDING);
+            List<CertificateRequest> requests = new ArrayList<>(pending.size());
+            for (CertificateJobItem item : pending) {
+                requests.add(toRequest(item));
+            }
+
+            if (jobRepository.start(jobId, instanceId, CertificateJob.Status.RUNNING, Instant.now()) == 0) {
+                logger.warn("Certificate job {} is no longer leased to this instance; not running it", jobId);
+                return;
+            }
+
+            certificateService.processCertificates(requests, new ItemListener() {
+                @Override
+                public void onSuccess(int index, CertificateRequest request) {
+                    // Items still in flight when the lease was lost are the new owner's to count
+                    if (lost.contains(jobId)) {
+                        return;
+                    }
+                    itemRepository.markFinished(jobId, pending.get(index).getItemIndex(),
+                            CertificateJobItem.Status.SUCCEEDED, null, Instant.now());
+                    jobRepository.incrementCompleted(jobId);
+                }
+
+                @Override
+                public void onFailure(int index, CertificateRequest request, Throwable error) {
+                    if (lost.contains(jobId)) {
+                        return;
+                    }
+                    String message = truncate(String.valueOf(error.getMessage()));
+                    itemRepository.markFinished(jobId, pending.get(index).getItemIndex(),
+                            CertificateJobItem.Status.FAILED, message, Instant.now());
+                    jobRepository.incrementFailed(jobId, message);
+                }
+            });
+
+            CertificateJob job = jobRepository.findById(jobId).orElseThrow();
+            status = job.getFailedItems() > 0
+                    ? CertificateJob.Status.COMPLETED_WITH_ERRORS : CertificateJob.Status.COMPLETED;
+        } catch (InterruptedException e) {
+            // Left RUNNING on purpose: a shutdown resumes it on the next startup and a lost
+            // lease leaves it to the instance that took it over
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            if (lost.contains(jobId)) {
+                return;
+            }
+            logger.error("Certificate job {} failed", jobId, e);
+            status = CertificateJob.Status.FAILED;
+            error = truncate(String.valueOf(e.getMessage()));
+        }
+        if (lost.contains(jobId)
+                || jobRepository.finish(jobId, instanceId, status, error, Instant.now()) == 0) {
+            logger.warn("Certificate job {} was taken over by another instance before it finished here", jobId);
+        }
+    }
+
+    public CertificateJobStatus getStatus(UUID jobId) {
+        CertificateJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found with ID: " + jobId));
+
+        CertificateJobStatus status = new CertificateJobStatus();
+        status.setJobId(job.getId());
+        status.setStatus(job.getStatus().name());
+        status.setTotalItems(job.getTotalItems());
+        status.setCompletedItems(job.getCompletedItems());
+        status.setFailedItems(job.getFailedItems());
+        int pendingItems = job.getTotalItems() - job.getCompletedItems() - job.getFailedItems();
+        status.setPendingItems(pendingItems);
+        status.setCreatedAt(job.getCreatedAt());
+        status.setStartedAt(job.getStartedAt());
+        status.setFinishedAt(job.getFinishedAt());
+        status.setLastError(job.getLastError());
+
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+            double seconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis() / 1000.0, 0.001);
+            long finishedThisRun = itemRepository.countByJobIdAndFinishedAtGreaterThanEqual(jobId, job.getStartedAt());
+            double itemsPerSecond = finishedThisRun / seconds;
+            status.setItemsPerSecond(itemsPerSecond);
+            if (job.getFinishedAt() == null && itemsPerSecond > 0) {
+                status.setEtaSeconds(Math.round(pendingItems / itemsPerSecond));
+            }
+        }
+        return status;
+    }
+
+    /**
+     * One page of item outcomes in item order, optionally only those with {@code status};
+     * {@code after} is the {@code nextAfter} of the previous page, or null for the first.
+     */
+    public CertificateJobItemPage getItems(UUID jobId, CertificateJobItem.Status status, Integer after, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_ITEMS_PAGE_SIZE));
+        List<CertificateJobItemSummary> items = itemRepository.findSummaries(jobId, status,
+                after != null ? after : -1, PageRequest.ofSize(size));
+        Integer nextAfter = items.size() == size ? items.get(items.size() - 1).getItemIndex() : null;
+        return new CertificateJobItemPage(items, nextAfter);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseScheduler.shutdownNow();
+        jobExecutor.shutdownNow();
+        // Let the next instance resume these at once instead of waiting for the lease to run out
+        try {
+            if (!owned.isEmpty()) {
+                jobRepository.releaseLeases(Set.copyOf(owned), instanceId, Instant.EPOCH);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not release certificate job leases: {}", e.getMessage());
+        }
+    }
+
+    private static CertificateRequest toRequest(CertificateJobItem item) {
+        CertificateRequest request = new CertificateRequest();
+        request.setUserId(item.getUserId());
+        request.setSubject(item.getSubject());
+        request.setPercentage(item.getPercentage());
+        request.setTemplateName(item.getTemplateName());
+        request.setTemplateVersion(item.getTemplateVersion());
+        return request;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,637 @@
+package com.example.demo.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import com.example.demo.model.CertificateTemplate;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Renders certificate HTML and PDFs with per-template state kept between calls.
+ *
+ * <p>Certificates use their own Thymeleaf engine whose resolver always caches parsed
+ * templates, so devtools or {@code spring.thymeleaf.cache=false} no longer force a re-parse
+ * per certificate. Compiled entries are keyed by template id and a hash of the template
+ * source. The hash is checked again at most once per {@code revalidate-ms}, and a classpath
+ * template whose source has changed is dropped from the engine cache and parsed afresh.
+ * Every PDF run shares one font-metrics store so font resolution happens once per process
+ * instead of once per document.
+ *
+ * <p>Templates with a {@code currentVersion} are rendered from source stored in the database
+ * (see {@link TemplateRegistryService}) instead of the classpath. Each stored version is loaded
+ * and parsed once, by whichever caller needs it first while concurrent callers wait for that
+ * result. Batches {@link #pin} the versions they render, so work started on an older version
+ * keeps it loaded after a newer one goes live. Once a version is neither live nor pinned it is
+ * dropped, and it is loaded again if anything asks for it later.
+ *
+ * <p>Each stage is timed as {@code certificates.render} tagged {@code stage=html|pdf|png}, and
+ * output sizes are recorded in {@code certificates.render.bytes} by format.
+ */
+@Component
+public class CertificateRenderer {
+
+    private static final String TEMPLATE_PREFIX = "templates/";
+    private static final String TEMPLATE_SUFFIX = ".html";
+    private static final String STORED_PREFIX = "stored/";
+
+    private static final String MERGED_PAGE_CLASS = "merged-page";
+    private static final String MERGED_PAGE_STYLE = "<style>body { margin: 0; padding: 0; } ."
+            + MERGED_PAGE_CLASS + " { overflow: hidden; } ."
+            + MERGED_PAGE_CLASS + " + ." + MERGED_PAGE_CLASS + " { page-break-before: always; }</style>";
+    private static final Pattern STYLE_BLOCK = Pattern.compile("(<style[^>]*>)(.*?)(</style>)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // Selector text: whatever precedes a '{' back to the end of the previous rule or declaration
+    private static final Pattern CSS_SELECTOR = Pattern.compile("([^{};]+)\\{");
+    private static final Pattern BODY_SELECTOR = Pattern.compile("(?<![\\w.#:-])body(?![\\w-])",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CLASS_ATTRIBUTE = Pattern.compile("\\bclass\\s*=\\s*([\"'])",
+            Pattern.CASE_INSENSITIVE);
+
+    /** Loads the source of a stored template version; supplied by the template registry. */
+    @FunctionalInterface
+    public interface TemplateSource {
+        String load(Long templateId, int version);
+    }
+
+    /** A template that has been resolved, hashed and handed to the cached engine. */
+    public static class CompiledTemplate {
+        private final Long templateId;
+        private final String name;
+        private final String version;
+        // When the version was last confirmed against the source, in System.nanoTime() terms
+        private volatile long checkedAt = System.nanoTime();
+
+        CompiledTemplate(Long templateId, String name, String version) {
+            this.templateId = templateId;
+            this.name = name;
+            this.version = version;
+        }
+
+        public Long getTemplateId() { return templateId; }
+        public String getName() { return name; }
+        public String getVersion() { return version; }
+    }
+
+    private final boolean cacheEnabled;
+    private final long revalidateNanos;
+    private final SpringTemplateEngine templateEngine;
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new FSDefaultCacheStore();
+    private final ConcurrentMap<Long, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<CompiledTemplate>> storedVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> storedSources = new ConcurrentHashMap<>();
+    // Stored versions running batches render, by compiled name, with how many batches hold each
+    private final Map<String, Integer> pinnedVersions = new HashMap<>();
+    // Per template, the newest version seen live; other unpinned versions are dropped
+    private final ConcurrentMap<Long, Integer> liveVersions = new ConcurrentHashMap<>();
+    private volatile TemplateSource templateSource;
+
+    private final Timer htmlTimer;
+    private final Timer pdfTimer;
+    private final Timer pngTimer;
+    private final DistributionSummary pdfBytes;
+    private final DistributionSummary pngBytes;
+
+    /** Unmetered renderer, for benchmarks and tools outside the application context. */
+    public CertificateRenderer(boolean cacheEnabled) {
+        this(cacheEnabled, 1000, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public CertificateRenderer(@Value("${certificates.render-cache.enabled:true}") boolean cacheEnabled,
+                               @Value("${certificates.render-cache.revalidate-ms:1000}") long revalidateMs,
+                               MeterRegistry meterRegistry) {
+        this.cacheEnabled = cacheEnabled;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMs);
+        this.htmlTimer = stageTimer(meterRegistry, "html");
+        this.pdfTimer = stageTimer(meterRegistry, "pdf");
+        this.pngTimer = stageTimer(meterRegistry, "png");
+        this.pdfBytes = outputSize(meterRegistry, "pdf");
+        this.pngBytes = outputSize(meterRegistry, "png");
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix(TEMPLATE_PREFIX);
+        resolver.setSuffix(TEMPLATE_SUFFIX);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(cacheEnabled);
+        resolver.setOrder(2);
+
+        // A stored version never changes, so its parsed form is always cacheable
+        StoredTemplateResolver storedResolver = new StoredTemplateResolver(this::storedSource);
+        storedResolver.setResolvablePatterns(Set.of(STORED_PREFIX + "*"));
+        storedResolver.setTemplateMode(TemplateMode.HTML);
+        storedResolver.setCacheable(true);
+        storedResolver.setOrder(1);
+
+        this.templateEngine = new SpringTemplateEngine();
+        this.templateEngine.addTemplateResolver(storedResolver);
+        this.templateEngine.addTemplateResolver(resolver);
+    }
+
+    private static class StoredTemplateResolver extends AbstractConfigurableTemplateResolver {
+        private final Function<String, String> sources;
+
+        StoredTemplateResolver(Function<String, String> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                            String template, String resourceName,
+                                                            String characterEncoding,
+                                                            Map<String, Object> templateResolutionAttributes) {
+            return new StringTemplateResource(sources.apply(template));
+        }
+    }
+
+    public void setTemplateSource(TemplateSource templateSource) {
+        this.templateSource = templateSource;
+    }
+
+    public CompiledTemplate compile(CertificateTemplate template) {
+        if (template.getCurrentVersion() != null) {
+            CompiledTemplate stored = compileStored(template.getId(), template.getCurrentVersion());
+            // Only a newer version moves this on, so a row read before the latest activation
+            // cannot make the live version look stale; rollbacks arrive via retireStoredVersions
+            Integer live = liveVersions.get(template.getId());
+            if (live == null || live < template.getCurrentVersion()) {
+                liveVersions.merge(template.getId(), template.getCurrentVersion(), Math::max);
+                dropStaleVersions(template.getId());
+            }
+            return stored;
+        }
+        if (!cacheEnabled) {
+            return new CompiledTemplate(template.getId(), template.getName(), null);
+        }
+        CompiledTemplate current = compiled.get(template.getId());
+        if (current != null && current.getName().equals(template.getName())) {
+            long now = System.nanoTime();
+            if (now - current.checkedAt < revalidateNanos) {
+                return current;
+            }
+            String version = hashSource(template.getName());
+            if (version.equals(current.getVersion())) {
+                current.checkedAt = now;
+                return current;
+            }
+            CompiledTemplate fresh = new CompiledTemplate(template.getId(), template.getName(), version);
+            templateEngine.clearTemplateCacheFor(current.getName());
+            compiled.put(template.getId(), fresh);
+            return fresh;
+        }
+        CompiledTemplate fresh = new CompiledTemplate(template.getId(), template.getName(), hashSource(template.getName()));
+        if (current != null) {
+            templateEngine.clearTemplateCacheFor(current.getName());
+        }
+        compiled.put(template.getId(), fresh);
+        return fresh;
+    }
+
+    /**
+     * Returns a stored template version, loading and parsing it on first use. A version whose
+     * source fails to load or parse is not remembered, so a later call tries again.
+     */
+    public CompiledTemplate compileStored(Long templateId, int version) {
+        String name = storedName(templateId, version);
+        CompletableFuture<CompiledTemplate> pending = storedVersions.get(name);
+        if (pending == null) {
+            CompletableFuture<CompiledTemplate> created = new CompletableFuture<>();
+            pending = storedVersions.putIfAbsent(name, created);
+            if (pending == null) {
+                pending = created;
+                try {
+                    created.complete(parseStored(templateId, version, name));
+                } catch (RuntimeException e) {
+                    storedVersions.remove(name, created);
+                    storedSources.remove(name);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CompiledTemplate parseStored(Long templateId, int version, String name) {
+        TemplateSource source = templateSource;
+        if (source == null) {
+            throw new IllegalStateException("No template source configured for stored template " + name);
+        }
+        String content = source.load(templateId, version);
+        // Also covers versions stored before uploads were checked
+        TemplateSourcePolicy.check(content);
+        storedSources.put(name, content);
+        // Processing it once here puts the parsed template in the engine cache before any real
+        // render needs it. Without variables some expressions may fail after parsing; only
+        // input errors mean the source itself is bad.
+        try {
+            htmlTimer.record(() -> templateEngine.process(name, new Context()));
+        } catch (TemplateInputException e) {
+            throw e;
+        } catch (TemplateProcessingException e) {
+            // parsed and cached; the expressions just need real values
+        }
+        return new CompiledTemplate(templateId, name, hash(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Keeps a stored version loaded until the matching {@link #unpin}, e.g. for a whole batch. */
+    public void pin(Long templateId, int version) {
+        synchronized (pinnedVersions) {
+            pinnedVersions.merge(storedName(templateId, version), 1, Integer::sum);
+        }
+    }
+
+    public void unpin(Long templateId, int version) {
+        synchronized (pinnedVersions) {
+            pinnedVersions.computeIfPresent(storedName(templateId, version), (name, count) -> count > 1 ? count - 1 : null);
+        }
+        dropStaleVersions(templateId);
+    }
+
+    /** Records {@code version} as live, including a rollback to an older one, and drops the rest. */
+    public void retireStoredVersions(Long templateId, int version) {
+        liveVersions.put(templateId, version);
+        dropStaleVersions(templateId);
+    }
+
+    private void dropStaleVersions(Long templateId) {
+        Integer live = liveVersions.get(templateId);
+        if (live == null) {
+            return;
+        }
+        String prefix = STORED_PREFIX + templateId + "/v";
+        String liveName = storedName(templateId, live);
+        synchronized (pinnedVersions) {
+            for (String name : storedVersions.keySet()) {
+                if (name.startsWith(prefix) && !name.equals(liveName) && !pinnedVersions.containsKey(name)) {
+                    storedVersions.remove(name);
+                    storedSources.remove(name);
+                    templateEngine.clearTemplateCacheFor(name);
+                }
+            }
+        }
+    }
+
+    // A render still holding a dropped version's CompiledTemplate reloads its source here
+    private String storedSource(String name) {
+        String source = storedSources.get(name);
+        if (source != null) {
+            return source;
+        }
+        TemplateSource loader = templateSource;
+        String[] parts = name.substring(STORED_PREFIX.length()).split("/v");
+        if (loader == null || parts.length != 2) {
+            throw new IllegalStateException("Stored template " + name + " has not been compiled");
+        }
+        source = loader.load(Long.valueOf(parts[0]), Integer.parseInt(parts[1]));
+        TemplateSourcePolicy.check(source);
+        return source;
+    }
+
+    private static String storedName(Long templateId, int version) {
+        return STORED_PREFIX + templateId + "/v" + version;
+    }
+
+    /** Hash of the template source that renders would use right now. */
+    public String sourceVersion(CertificateTemplate template) {
+        String version = compile(template).getVersion();
+        return version != null ? version : hashSource(template.getName());
+    }
+
+    /** Drops the compiled entry for a template whose source has changed. */
+    public void evict(Long templateId) {
+        CompiledTemplate removed = compiled.remove(templateId);
+        if (removed != null) {
+            templateEngine.clearTemplateCacheFor(removed.getName());
+        }
+    }
+
+    public String renderHtml(CertificateTemplate template, Map<String, Object> variables) {
+        return renderHtml(compile(template), variables);
+    }
+
+    public String renderHtml(CompiledTemplate compiledTemplate, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return htmlTimer.record(() -> templateEngine.process(compiledTemplate.getName(), context));
+    }
+
+    public byte[] renderPdf(CertificateTemplate template, Map<String, Object> variables) throws IOException {
+        return htmlToPdf(renderHtml(template, variables));
+    }
+
+    public byte[] renderPdf(CompiledTemplate compiledTemplate, Map<String, Object> variables) throws IOException {
+        return htmlToPdf(renderHtml(compiledTemplate, variables));
+    }
+
+    public byte[] htmlToPdf(String html) throws IOException {
+        return htmlToPdf(html, true);
+    }
+
+    public byte[] htmlToPdf(String html, boolean fastMode) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PdfRendererBuilder builder = new PdfRendererBuilder();
+        builder.withHtmlContent(html, null);
+        builder.toStream(outputStream);
+        if (fastMode) {
+            builder.useFastMode();
+        }
+        if (cacheEnabled) {
+            builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+        }
+        builder.run();
+        pdfTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        pdfBytes.record(outputStream.size());
+        return outputStream.toByteArray();
+    }
+
+    /** Starts a multi-page export; see {@link MergedPdf}. */
+    public MergedPdf openMergedPdf(int pagesPerLayout) {
+        return new MergedPdf(pagesPerLayout);
+    }
+
+    /**
+     * One PDF holding many certificates, one per page. Consecutive certificates of the same
+     * template are laid out together as a single HTML document of up to {@code pagesPerLayout}
+     * pages, so the stylesheet is parsed and fonts are set up once per layout instead of once
+     * per certificate. Each layout is appended to a document whose content streams live in a
+     * temp file, so heap use stays flat however many certificates are added.
+     *
+     * <p>Only one {@code <body>} survives the splice, so each certificate's body becomes a
+     * {@code div.merged-page} carrying the body's attributes, and {@code body} selectors in the
+     * template's stylesheets are rewritten to that class. Every page therefore gets the size,
+     * background and spacing a single render of the certificate would have.
+     */
+    public class MergedPdf implements Closeable {
+        private final int pagesPerLayout;
+        private final PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+        private final List<String> pendingBodies = new ArrayList<>();
+        private String pendingHead;
+        private String pendingTemplate;
+        private int certificates;
+
+        private MergedPdf(int pagesPerLayout) {
+            this.pagesPerLayout = Math.max(1, pagesPerLayout);
+        }
+
+        public void append(CertificateTemplate template, Map<String, Object> variables) throws IOException {
+            append(compile(template), variables);
+        }
+
+        public void append(CompiledTemplate template, Map<String, Object> variables) throws IOException {
+            String html = renderHtml(template, variables);
+            String lower = html.toLowerCase(Locale.ROOT);
+            int bodyTag = lower.indexOf("<body");
+            int bodyEnd = lower.lastIndexOf("</body>");
+            if (bodyTag < 0 || bodyEnd < 0) {
+                throw new IllegalArgumentException("Template " + template.getName() + " has no <body> element");
+            }
+            int bodyStart = html.indexOf('>', bodyTag) + 1;
+
+            // Grouped by compiled name, so two versions of one template never share a layout
+            if (pendingTemplate != null
+                    && (!pendingTemplate.equals(template.getName()) || pendingBodies.size() >= pagesPerLayout)) {
+                layoutPending();
+            }
+            if (pendingBodies.isEmpty()) {
+                pendingHead = html.substring(0, bodyTag);
+                pendingTemplate = template.getName();
+            }
+            pendingBodies.add(pageWrapper(html.substring(bodyTag + "<body".length(), bodyStart - 1))
+                    + html.substring(bodyStart, bodyEnd) + "</div>");
+            certificates++;
+        }
+
+        public int getCertificates() { return certificates; }
+
+        /** Lays out anything still pending and writes the whole document to {@code out}. */
+        public void writeTo(OutputStream out) throws IOException {
+            layoutPending();
+            document.save(out);
+        }
+
+        public int getPages() { return document.getNumberOfPages(); }
+
+        private void layoutPending() throws IOException {
+            if (pendingBodies.isEmpty()) {
+                return;
+            }
+            StringBuilder html = new StringBuilder(mergedHead(pendingHead)).append("<body>");
+            pendingBodies.forEach(html::append);
+            html.append("</body></html>");
+            pendingBodies.clear();
+            pendingTemplate = null;
+
+            long start = System.nanoTime();
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.withHtmlContent(html.toString(), null);
+            builder.useFastMode();
+            builder.usePDDocument(document);
+            if (cacheEnabled) {
+                builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+            }
+            try (PdfBoxRenderer renderer = builder.buildPdfRenderer()) {
+                renderer.layout();
+                renderer.createPDFWithoutClosing();
+            }
+            pdfTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void close() throws IOException {
+            document.close();
+        }
+    }
+
+    /** The opening tag of a certificate's page: a div with the body's attributes and the page class. */
+    static String pageWrapper(String bodyAttributes) {
+        Matcher existing = CLASS_ATTRIBUTE.matcher(bodyAttributes);
+        if (existing.find()) {
+            return "<div" + bodyAttributes.substring(0, existing.end())
+                    + MERGED_PAGE_CLASS + " " + bodyAttributes.substring(existing.end()) + ">";
+        }
+        return "<div class=\"" + MERGED_PAGE_CLASS + "\"" + bodyAttributes + ">";
+    }
+
+    /** {@code head} with body rules moved onto the page class and the real body zeroed. */
+    static String mergedHead(String head) {
+        Matcher style = STYLE_BLOCK.matcher(head);
+        StringBuilder rewritten = new StringBuilder();
+        while (style.find()) {
+            Matcher selector = CSS_SELECTOR.matcher(style.group(2));
+            StringBuilder css = new StringBuilder();
+            while (selector.find()) {
+                String replaced = BODY_SELECTOR.matcher(selector.group(1)).replaceAll("." + MERGED_PAGE_CLASS);
+                selector.appendReplacement(css, Matcher.quoteReplacement(replaced + "{"));
+            }
+            selector.appendTail(css);
+            style.appendReplacement(rewritten, Matcher.quoteReplacement(style.group(1) + css + style.group(3)));
+        }
+        style.appendTail(rewritten);
+
+        int headEnd = rewritten.toString().toLowerCase(Locale.ROOT).lastIndexOf("</head>");
+        return headEnd < 0
+                ? rewritten + MERGED_PAGE_STYLE
+                : rewritten.insert(headEnd, MERGED_PAGE_STYLE).toString();
+    }
+
+    /**
+     * Preview sizes by target pixel width. Each tier is rendered at the DPI that produces its
+     * width directly, so nothing is rasterised at 300 DPI and scaled down afterwards.
+     */
+    public enum PreviewTier {
+        THUMBNAIL("thumb", 320),
+        CARD("card", 960),
+        FULL("full", 1754);
+
+        private final String suffix;
+        private final int width;
+
+        PreviewTier(String suffix, int width) {
+            this.suffix = suffix;
+            this.width = width;
+        }
+
+        public String getSuffix() { return suffix; }
+        public int getWidth() { return width; }
+    }
+
+    /** Renders page 0 once per tier as opaque RGB (no alpha channel) and encodes each as PNG. */
+    public Map<PreviewTier, byte[]> renderPreviews(byte[] pdf) throws IOException {
+        Map<PreviewTier, byte[]> previews = new EnumMap<>(PreviewTier.class);
+        long start = System.nanoTime();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            PDFRenderer pdfRenderer = new PDFRenderer(document);
+            float pageWidthPoints = document.getPage(0).getMediaBox().getWidth();
+            for (PreviewTier tier : PreviewTier.values()) {
+                previews.put(tier, rasterise(pdfRenderer, pageWidthPoints, tier));
+            }
+        }
+        pngTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return previews;
+    }
+
+    /** Renders page 0 at a single preview tier. */
+    public byte[] renderPreview(byte[] pdf, PreviewTier tier) throws IOException {
+        long start = System.nanoTime();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            return rasterise(new PDFRenderer(document), document.getPage(0).getMediaBox().getWidth(), tier);
+        } finally {
+            pngTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private byte[] rasterise(PDFRenderer pdfRenderer, float pageWidthPoints, PreviewTier tier) throws IOException {
+        float scale = tier.getWidth() / pageWidthPoints;
+        BufferedImage image = pdfRenderer.renderImage(0, scale, ImageType.RGB);
+        ByteArrayOutputStream imageOutput = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", imageOutput);
+        image.flush();
+        pngBytes.record(imageOutput.size());
+        return imageOutput.toByteArray();
+    }
+
+    /** Rasterises the first page of a PDF to PNG. */
+    public byte[] renderPng(byte[] pdf, float dpi) throws IOException {
+        long start = System.nanoTime();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            BufferedImage image = new PDFRenderer(document).renderImageWithDPI(0, dpi);
+            ByteArrayOutputStream imageOutput = new ByteArrayOutputStream();
+            ImageIO.write(image, "PNG", imageOutput);
+            pngBytes.record(imageOutput.size());
+            return imageOutput.toByteArray();
+        } finally {
+            pngTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("certificates.render")
+                .description("Time spent in one certificate rendering stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary outputSize(MeterRegistry meterRegistry, String format) {
+        return DistributionSummary.builder("certificates.render.bytes")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    private static String hashSource(String templateName) {
+        String resource = TEMPLATE_PREFIX + templateName + TEMPLATE_SUFFIX;
+        try (InputStream in = CertificateRenderer.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Template file not found: " + resource);
+            }
+            return hash(in.readAllBytes());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read template " + resource, e);
+        }
+    }
+
+    private static String hash(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
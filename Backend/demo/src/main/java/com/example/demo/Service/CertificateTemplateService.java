@@ -2,45 +2,49 @@
 package com.example.demo.Service;
 
 import com.example.demo.Repository.CertificateTemplateRepository;
+import com.example.demo.Service.CertificateBatchEngine.BatchResult;
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.Service.CertificateBatchEngine.RenderedCertificate;
+import com.example.demo.Service.CertificateRenderer.CompiledTemplate;
+import com.example.demo.Service.CertificateRenderer.PreviewTier;
 import com.example.demo.dto.CertificateRequest;
+import com.example.demo.model.CertificateCatalogEntry;
 import com.example.demo.model.CertificateTemplate;
 import com.example.demo.model.User;
 import com.example.demo.Repository.UserRepository;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class CertificateTemplateService {
 
-    @Value("${supabase.url}")
-    private String supabaseUrl;
-
-    @Value("${supabase.key}")
-    private String supabaseKey;
+    private static final Logger logger = LoggerFactory.getLogger(CertificateTemplateService.class);
 
-    @Value("${supabase.bucket}")
-    private String bucket;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMMM yyyy");
 
-    private final TemplateEngine templateEngine;
+    private final CertificateRenderer renderer;
 
     @Autowired
     private UserRepository userRepository;
@@ -48,133 +52,395 @@ public class CertificateTemplateService {
     @Autowired
     private CertificateTemplateRepository templateRepository;
 
-    public CertificateTemplateService(TemplateEngine templateEngine) {
-        this.templateEngine = templateEngine;
+    @Autowired
+    private CertificateBatchEngine batchEngine;
+
+    @Autowired
+    private ObjectStorage storage;
+
+    @Autowired
+    private PdfContentCache pdfCache;
+
+    @Autowired
+    private CertificateCatalogService catalogService;
+
+    @Value("${certificates.export.pages-per-layout:50}")
+    private int exportPagesPerLayout;
+
+    @Value("${certificates.export.max-certificates:2000}")
+    private int exportMaxCertificates;
+
+    public static class MergedExport {
+        private final String url;
+        private final int certificates;
+        private final int pages;
+        private final long bytes;
+        private final List<String> failures;
+
+        MergedExport(String url, int certificates, int pages, long bytes, List<String> failures) {
+            this.url = url;
+            this.certificates = certificates;
+            this.pages = pages;
+            this.bytes = bytes;
+            this.failures = failures;
+        }
+
+        public String getUrl() { return url; }
+        public int getCertificates() { return certificates; }
+        public int getPages() { return pages; }
+        public long getBytes() { return bytes; }
+        public List<String> getFailures() { return failures; }
+    }
+
+    public CertificateTemplateService(CertificateRenderer renderer) {
+        this.renderer = renderer;
     }
 
     public byte[] generatePdf(CertificateRequest cert) throws IOException {
+        User user = userRepository.findById(cert.getUserId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + cert.getUserId()));
+
+        CertificateTemplate template = templateRepository.findById(parseTemplateId(cert))
+                .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + cert.getTemplateName()));
+
+        return generatePdf(cert, user, template);
+    }
+
+    public byte[] generatePdf(CertificateRequest cert, User user, CertificateTemplate template) throws IOException {
+        return renderPdf(compiledFor(cert, template), certificateVariables(cert, user, LocalDate.now()));
+    }
+
+    private byte[] renderPdf(CompiledTemplate template, Map<String, Object> variables) throws IOException {
         try {
-            User user = userRepository.findById(cert.getUserId())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + cert.getUserId()));
-
-            CertificateTemplate template = templateRepository.findById(Long.parseLong(cert.getTemplateName()))
-                    .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + cert.getTemplateName()));
-
-            Context context = new Context();
-            context.setVariable("name", user.getName());
-            context.setVariable("email", user.getEmail());
-            context.setVariable("phone", user.getPhone());
-            context.setVariable("percentage", cert.getPercentage());
-            context.setVariable("subject", cert.getSubject());
-            context.setVariable("date", LocalDate.now().format(DateTimeFormatter.ofPattern("dd MMMM yyyy")));
-
-            String htmlContent = templateEngine.process(template.getName(), context);
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            PdfRendererBuilder builder = new PdfRendererBuilder();
-            builder.withHtmlContent(htmlContent, null);
-            builder.toStream(outputStream);
-            builder.useFastMode();
-            builder.run();
-
-            return outputStream.toByteArray();
+            return renderer.renderPdf(template, variables);
         } catch (Exception e) {
             throw new IOException("Error generating PDF", e);
         }
     }
 
+    // A request pinned to a stored version renders that version even after a newer one goes live
+    private CompiledTemplate compiledFor(CertificateRequest cert, CertificateTemplate template) {
+        return cert.getTemplateVersion() != null
+                ? renderer.compileStored(template.getId(), cert.getTemplateVersion())
+                : renderer.compile(template);
+    }
+
+    /**
+     * Fills in the live version of each request's template where none is set, so a job queued
+     * now renders what is live now. Requests for classpath templates are left unpinned.
+     */
+    public void pinTemplateVersions(List<CertificateRequest> certificates) {
+        Map<Long, CertificateTemplate> templates = new HashMap<>();
+        resolveTemplates(certificates, templates);
+        for (CertificateRequest cert : certificates) {
+            CertificateTemplate template = templates.get(parseTemplateIdOrNull(cert));
+            if (cert.getTemplateVersion() == null && template != null) {
+                cert.setTemplateVersion(template.getCurrentVersion());
+            }
+        }
+    }
+
+    /**
+     * Renders a catalogued certificate again as it was issued, for when the stored object is
+     * gone: the recorded student name, percentage, issue date and template version, with the
+     * user's contact details. Entries backfilled from a bucket listing, or recorded before the
+     * issue date was kept, cannot be reproduced and are refused.
+     */
+    public byte[] regeneratePdf(CertificateCatalogEntry entry) throws IOException {
+        if (entry.getUserId() == null || entry.getTemplateId() == null || entry.getIssuedOn() == null) {
+            throw new IOException("Not enough catalog data to re-render " + entry.getObjectPath());
+        }
+        CertificateRequest cert = new CertificateRequest();
+        cert.setUserId(entry.getUserId());
+        cert.setTemplateName(String.valueOf(entry.getTemplateId()));
+        cert.setTemplateVersion(entry.getTemplateVersion());
+        cert.setSubject(entry.getSubject());
+        cert.setPercentage(entry.getPercentage());
+        try {
+            User user = userRepository.findById(entry.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + entry.getUserId()));
+            CertificateTemplate template = templateRepository.findById(entry.getTemplateId())
+                    .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + entry.getTemplateId()));
+            Map<String, Object> variables = certificateVariables(cert, user, entry.getIssuedOn());
+            // The name the certificate was issued under, even if the user has been renamed since
+            variables.put("name", entry.getStudentName());
+            return renderPdf(compiledFor(cert, template), variables);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> certificateVariables(CertificateRequest cert, User user, LocalDate issuedOn) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", user.getName());
+        variables.put("email", user.getEmail());
+        variables.put("phone", user.getPhone());
+        variables.put("percentage", cert.getPercentage());
+        variables.put("subject", cert.getSubject());
+        variables.put("date", issuedOn.format(DATE_FORMAT));
+        return variables;
+    }
+
     public void uploadToSupabase(byte[] pdfBytes, String subject, String studentName) throws IOException, InterruptedException {
-        String safeStudentName = studentName.trim().replaceAll("[^a-zA-Z0-9_-]", "_");
-        String safeSubject = subject.trim().replaceAll("[^a-zA-Z0-9_-]", "_");
-        
-        String filePath = "certificates/" + safeStudentName + "/" + safeSubject + ".pdf";
+        storage.upload(certificatePath(studentName, subject), "application/pdf", pdfBytes);
+    }
+
+    public static String certificatePath(String studentName, String subject) {
+        return "certificates/" + safePathSegment(studentName) + "/" + safePathSegment(subject) + ".pdf";
+    }
+
+    public static String safePathSegment(String value) {
+        return value.trim().replaceAll("[^a-zA-Z0-9_-]", "_");
+    }
+
+    public BatchResult processCertificates(List<CertificateRequest> certificates) throws InterruptedException {
+        return processCertificates(certificates, ItemListener.NONE);
+    }
+
+    public BatchResult processCertificates(List<CertificateRequest> certificates, ItemListener listener)
+            throws InterruptedException {
+        Map<Long, User> users = new HashMap<>();
+        Map<Long, CertificateTemplate> templates = new HashMap<>();
+        resolve(certificates, users, templates);
+
+        Map<Long, Set<Integer>> pinned = pinStoredVersions(certificates, templates);
+        try {
+            return batchEngine.run(certificates, cert -> renderCertificate(cert, users, templates), this::uploadRendered, listener);
+        } finally {
+            unpinStoredVersions(pinned);
+        }
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + filePath))
-            .header("apikey", supabaseKey)
-            .header("Authorization", "Bearer " + supabaseKey)
-            .header("Content-Type", "application/pdf")
-            .PUT(HttpRequest.BodyPublishers.ofByteArray(pdfBytes))
-            .build();
+    /**
+     * Renders {@code certificates} into one multi-page PDF, in request order, and uploads it to
+     * {@code exports/}. Items whose user or template cannot be found are skipped and reported.
+     * The document is written to a temp file and streamed from there to storage.
+     */
+    public MergedExport exportMergedPdf(List<CertificateRequest> certificates, String name)
+            throws IOException, InterruptedException {
+        if (certificates.size() > exportMaxCertificates) {
+            throw new IllegalArgumentException("At most " + exportMaxCertificates + " certificates per export");
+        }
+        Map<Long, User> users = new HashMap<>();
+        Map<Long, CertificateTemplate> templates = new HashMap<>();
+        resolve(certificates, users, templates);
 
-        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        List<String> failures = new ArrayList<>();
+        Path file = Files.createTempFile("certificate-export-", ".pdf");
+        Map<Long, Set<Integer>> pinned = pinStoredVersions(certificates, templates);
+        try {
+            int exported;
+            int pages;
+            try (CertificateRenderer.MergedPdf merged = renderer.openMergedPdf(exportPagesPerLayout)) {
+                for (CertificateRequest cert : certificates) {
+                    User user = users.get(cert.getUserId());
+                    CertificateTemplate template = templates.get(parseTemplateIdOrNull(cert));
+                    if (user == null || template == null) {
+                        failures.add("user " + cert.getUserId() + ": "
+                                + (user == null ? "user not found" : "template not found: " + cert.getTemplateName()));
+                        continue;
+                    }
+                    try {
+                        merged.append(compiledFor(cert, template), certificateVariables(cert, user, LocalDate.now()));
+                    } catch (RuntimeException e) {
+                        failures.add("user " + cert.getUserId() + ": " + e.getMessage());
+                    }
+                }
+                exported = merged.getCertificates();
+                if (exported == 0) {
+                    return new MergedExport(null, 0, 0, 0, failures);
+                }
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    merged.writeTo(out);
+                }
+                pages = merged.getPages();
+            }
+
+            long bytes = Files.size(file);
+            String path = "exports/" + safePathSegment(name) + "-" + UUID.randomUUID().toString().substring(0, 8) + ".pdf";
+            String url = ObjectStorage.await(storage.uploadAsync(path, "application/pdf", () -> Files.newInputStream(file), bytes));
+            logger.atInfo().addKeyValue("certificates", exported).addKeyValue("pages", pages).addKeyValue("bytes", bytes)
+                    .addKeyValue("path", path).log("Merged certificate export uploaded");
+            return new MergedExport(url, exported, pages, bytes, failures);
+        } finally {
+            unpinStoredVersions(pinned);
+            Files.deleteIfExists(file);
+        }
+    }
 
-        if (response.statusCode() != 200 && response.statusCode() != 201) {
-            throw new RuntimeException("Failed to upload PDF: " + response.body());
+    // Keeps each stored version the batch renders loaded until it finishes, even once superseded
+    private Map<Long, Set<Integer>> pinStoredVersions(List<CertificateRequest> certificates,
+                                                      Map<Long, CertificateTemplate> templates) {
+        Map<Long, Set<Integer>> pinned = new HashMap<>();
+        for (CertificateRequest cert : certificates) {
+            CertificateTemplate template = templates.get(parseTemplateIdOrNull(cert));
+            if (template == null) {
+                continue;
+            }
+            Integer version = cert.getTemplateVersion() != null ? cert.getTemplateVersion() : template.getCurrentVersion();
+            if (version != null && pinned.computeIfAbsent(template.getId(), id -> new HashSet<>()).add(version)) {
+                renderer.pin(template.getId(), version);
+            }
         }
+        return pinned;
+    }
+
+    private void unpinStoredVersions(Map<Long, Set<Integer>> pinned) {
+        pinned.forEach((templateId, versions) -> versions.forEach(version -> renderer.unpin(templateId, version)));
     }
 
-    public void processCertificates(List<CertificateRequest> certificates) throws IOException, InterruptedException {
+    // Resolves every user and template with one query each instead of lookups per item
+    private void resolve(List<CertificateRequest> certificates, Map<Long, User> users,
+                         Map<Long, CertificateTemplate> templates) {
+        Set<Long> userIds = new HashSet<>();
         for (CertificateRequest cert : certificates) {
-            User user = userRepository.findById(cert.getUserId())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + cert.getUserId()));
+            if (cert.getUserId() != null) {
+                userIds.add(cert.getUserId());
+            }
+        }
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+        resolveTemplates(certificates, templates);
+    }
+
+    // Loaded once per batch: the currentVersion read here is what the whole batch renders
+    private void resolveTemplates(List<CertificateRequest> certificates, Map<Long, CertificateTemplate> templates) {
+        Set<Long> templateIds = new HashSet<>();
+        for (CertificateRequest cert : certificates) {
+            Long templateId = parseTemplateIdOrNull(cert);
+            if (templateId != null) {
+                templateIds.add(templateId);
+            }
+            // unparseable ids are reported per item by the render stage
+        }
+        for (CertificateTemplate template : templateRepository.findAllById(templateIds)) {
+            templates.put(template.getId(), template);
+        }
+    }
+
+    private RenderedCertificate renderCertificate(CertificateRequest cert, Map<Long, User> users,
+                                                  Map<Long, CertificateTemplate> templates)
+            throws IOException, InterruptedException {
+        User user = users.get(cert.getUserId());
+        if (user == null) {
+            throw new IllegalArgumentException("User not found with ID: " + cert.getUserId());
+        }
+        CertificateTemplate template = templates.get(parseTemplateId(cert));
+        if (template == null) {
+            throw new IllegalArgumentException("Template not found with ID: " + cert.getTemplateName());
+        }
+
+        CompiledTemplate compiled = compiledFor(cert, template);
+        String version = compiled.getVersion();
+        LocalDate issuedOn = LocalDate.now();
+        Map<String, Object> variables = certificateVariables(cert, user, issuedOn);
+        if (!pdfCache.isEnabled() || version == null) {
+            return new RenderedCertificate(cert, user.getName(), issuedOn, renderPdf(compiled, variables));
+        }
+
+        // The date is part of the key because it is printed on the certificate
+        String contentKey = PdfContentCache.key(template.getId().toString(), version, user.getName(),
+                user.getEmail(), user.getPhone(), cert.getSubject(), cert.getPercentage(),
+                issuedOn.format(DATE_FORMAT));
+        // Only skipped while storage still holds exactly what this instance uploaded there
+        String path = certificatePath(user.getName(), cert.getSubject());
+        Optional<String> uploadedMd5 = pdfCache.uploadedDigest(path, contentKey);
+        if (uploadedMd5.isPresent() && storage.etag(path).map(uploadedMd5.get()::equalsIgnoreCase).orElse(false)) {
+            return new RenderedCertificate(cert, user.getName(), issuedOn, null, contentKey);
+        }
+        byte[] pdf = pdfCache.get(contentKey).orElse(null);
+        if (pdf == null) {
+            pdf = renderPdf(compiled, variables);
+            pdfCache.put(contentKey, pdf);
+        }
+        return new RenderedCertificate(cert, user.getName(), issuedOn, pdf, contentKey);
+    }
 
-            byte[] pdfBytes = generatePdf(cert);
-            uploadToSupabase(pdfBytes, cert.getSubject(), user.getName());
+    private static Long parseTemplateIdOrNull(CertificateRequest cert) {
+        try {
+            return parseTemplateId(cert);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
+    private static Long parseTemplateId(CertificateRequest cert) {
+        try {
+            return Long.parseLong(cert.getTemplateName());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid template ID: " + cert.getTemplateName());
+        }
+    }
+
+    private void uploadRendered(RenderedCertificate rendered) throws IOException, InterruptedException {
+        if (rendered.isAlreadyStored()) {
+            return;
+        }
+        String path = certificatePath(rendered.getStudentName(), rendered.getRequest().getSubject());
+        if (rendered.getContentKey() == null) {
+            storage.upload(path, "application/pdf", rendered.getPdf());
+        } else {
+            // Storage reports the MD5 of single-part uploads as the ETag
+            String md5 = PdfContentCache.md5Hex(rendered.getPdf());
+            if (!storage.etag(path).map(md5::equalsIgnoreCase).orElse(false)) {
+                storage.upload(path, "application/pdf", rendered.getPdf());
+            }
+            pdfCache.markUploaded(path, rendered.getContentKey(), md5);
+        }
+        catalogService.record(rendered.getRequest(), rendered.getStudentName(), rendered.getIssuedOn(), path);
+    }
+
     public List<CertificateTemplate> getAllTemplates() {
         return templateRepository.findAll();
     }
 
     public String generateAndUploadPreviewImage(Long templateId) throws IOException, InterruptedException {
-    System.out.println("Generating preview for template ID: " + templateId);
+        return generateAndUploadPreviewImage(templateId, false);
+    }
+
+    public String generateAndUploadPreviewImage(Long templateId, boolean force) throws IOException, InterruptedException {
     CertificateTemplate template = templateRepository.findById(templateId)
             .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + templateId));
 
-    Context context = new Context();
-    context.setVariable("name", "John Doe");
-    context.setVariable("email", "john@example.com");
-    context.setVariable("phone", "1234567890");
-    context.setVariable("percentage", "95%");
-    context.setVariable("subject", "Mathematics");
-    context.setVariable("date", LocalDate.now().format(DateTimeFormatter.ofPattern("dd MMMM yyyy")));
-
-    System.out.println("Processing template: " + template.getName());
-    String htmlContent = templateEngine.process(template.getName(), context);
-
-    ByteArrayOutputStream pdfOutput = new ByteArrayOutputStream();
-    PdfRendererBuilder builder = new PdfRendererBuilder();
-    builder.withHtmlContent(htmlContent, null);
-    builder.toStream(pdfOutput);
-    builder.useFastMode();
-    builder.run();
-
-    System.out.println("Converting PDF to PNG");
-    ByteArrayInputStream pdfInput = new ByteArrayInputStream(pdfOutput.toByteArray());
-    PDDocument document = PDDocument.load(pdfInput);
-    PDFRenderer pdfRenderer = new PDFRenderer(document);
-    BufferedImage image = pdfRenderer.renderImageWithDPI(0, 300);
-
-    ByteArrayOutputStream imageOutput = new ByteArrayOutputStream();
-    ImageIO.write(image, "PNG", imageOutput);
-    document.close();
+    String version = renderer.compile(template).getVersion();
+    if (!force && template.getPreviewImageUrl() != null && version != null && version.equals(template.getPreviewHash())) {
+        logger.atDebug().addKeyValue("templateId", templateId).log("Template unchanged, keeping existing preview");
+        return template.getPreviewImageUrl();
+    }
 
-    String safeTemplateName = template.getName().replaceAll("[^a-zA-Z0-9_-]", "_");
-    String imagePath = "previews/" + safeTemplateName + ".png";
-    System.out.println("Uploading image to Supabase: " + imagePath);
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("name", "John Doe");
+    variables.put("email", "john@example.com");
+    variables.put("phone", "1234567890");
+    variables.put("percentage", "95%");
+    variables.put("subject", "Mathematics");
+    variables.put("date", LocalDate.now().format(DATE_FORMAT));
 
-    HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + imagePath))
-            .header("apikey", supabaseKey)
-            .header("Authorization", "Bearer " + supabaseKey)
-            .header("Content-Type", "image/png")
-            .PUT(HttpRequest.BodyPublishers.ofByteArray(imageOutput.toByteArray()))
-            .build();
+    byte[] pdfBytes = renderer.renderPdf(template, variables);
 
-    HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    Map<PreviewTier, byte[]> previews = renderer.renderPreviews(pdfBytes);
 
-    if (response.statusCode() != 200 && response.statusCode() != 201) {
-        System.err.println("Failed to upload preview image. Status: " + response.statusCode() + ", Body: " + response.body());
-        throw new RuntimeException("Failed to upload preview image: " + response.body());
+    String safeTemplateName = template.getName().replaceAll("[^a-zA-Z0-9_-]", "_");
+    Map<PreviewTier, CompletableFuture<String>> uploads = new EnumMap<>(PreviewTier.class);
+    for (Map.Entry<PreviewTier, byte[]> preview : previews.entrySet()) {
+        String imagePath = "previews/" + safeTemplateName + "-" + preview.getKey().getSuffix() + ".png";
+        uploads.put(preview.getKey(), storage.uploadAsync(imagePath, "image/png", preview.getValue()));
     }
-
-    String previewUrl = supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + imagePath;
-    System.out.println("Preview URL generated: " + previewUrl);
-    template.setPreviewImageUrl(previewUrl);
+    CompletableFuture.allOf(uploads.values().toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+
+    try {
+        template.setPreviewThumbnailUrl(uploads.get(PreviewTier.THUMBNAIL).get());
+        template.setPreviewImageUrl(uploads.get(PreviewTier.CARD).get());
+        template.setPreviewFullUrl(uploads.get(PreviewTier.FULL).get());
+    } catch (ExecutionException e) {
+        throw new IOException("Failed to upload preview image: " + e.getCause().getMessage(), e.getCause());
+    }
+    template.setPreviewHash(version);
+    logger.atInfo().addKeyValue("templateId", templateId).addKeyValue("template", template.getName())
+            .addKeyValue("previewUrl", template.getPreviewImageUrl()).log("Template preview generated");
     templateRepository.save(template);
 
-    return previewUrl;
+    return template.getPreviewImageUrl();
 }
 }
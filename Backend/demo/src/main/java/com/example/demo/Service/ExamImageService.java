@@ -0,0 +1,245 @@
+package com.example.demo.Service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores exam images. The original is streamed from the multipart temp file straight into
+ * the storage request, so no upload is ever held in a heap array; its type comes from the
+ * file's magic bytes rather than the client's Content-Type header. Dimensions are read from
+ * the header before anything is stored, so an image above {@code max-pixels} is refused without
+ * being decoded, and variants are only made when the subsampled decode stays within
+ * {@code max-decoded-pixels}.
+ */
+@Service
+public class ExamImageService {
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamImageService.class);
+
+    public enum ImageType {
+        JPEG("image/jpeg", "jpg", "jpeg"),
+        PNG("image/png", "png", "png");
+
+        private final String contentType;
+        private final String extension;
+        private final String formatName;
+
+        ImageType(String contentType, String extension, String formatName) {
+            this.contentType = contentType;
+            this.extension = extension;
+            this.formatName = formatName;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+    }
+
+    public static class StoredImage {
+        private final String imageUrl;
+        private final Map<Integer, String> variants;
+
+        StoredImage(String imageUrl, Map<Integer, String> variants) {
+            this.imageUrl = imageUrl;
+            this.variants = variants;
+        }
+
+        public String getImageUrl() { return imageUrl; }
+        public Map<Integer, String> getVariants() { return variants; }
+    }
+
+    @Autowired
+    private ObjectStorage storage;
+
+    private final List<Integer> variantWidths;
+    private final long maxPixels;
+    private final long maxDecodedPixels;
+
+    public ExamImageService(@Value("${exams.images.variant-widths:480,1200}") Integer[] variantWidths,
+                            @Value("${exams.images.max-pixels:50000000}") long maxPixels,
+                            @Value("${exams.images.max-decoded-pixels:16000000}") long maxDecodedPixels) {
+        this.variantWidths = Arrays.asList(variantWidths);
+        this.maxPixels = maxPixels;
+        this.maxDecodedPixels = maxDecodedPixels;
+    }
+
+    /** Returns the detected type, or null when the header is neither JPEG nor PNG. */
+    public ImageType sniff(MultipartFile file) throws IOException {
+        byte[] header;
+        try (InputStream in = file.getInputStream()) {
+            header = in.readNBytes(PNG_MAGIC.length);
+        }
+        if (startsWith(header, JPEG_MAGIC)) {
+            return ImageType.JPEG;
+        }
+        if (startsWith(header, PNG_MAGIC)) {
+            return ImageType.PNG;
+        }
+        return null;
+    }
+
+    /**
+     * Uploads the original as {@code <uuid>.<ext>} and, when {@code withVariants} is set,
+     * downscaled copies at each configured width narrower than the source, as
+     * {@code <uuid>-w<width>.<ext>}. The client's file name is not used. Throws
+     * IllegalArgumentException when the image cannot be read or has more than
+     * {@code max-pixels} pixels.
+     */
+    public StoredImage store(MultipartFile file, ImageType type, boolean withVariants)
+            throws IOException, InterruptedException {
+        checkDimensions(file);
+        String baseName = UUID.randomUUID().toString();
+        // Built from the UUID and the sniffed type only: the client's file name could hold
+        // "../" or characters that are not valid in the storage URL
+        String objectPath = baseName + "." + type.getExtension();
+
+        CompletableFuture<String> original = storage.uploadAsync(objectPath, type.getContentType(),
+                file::getInputStream, file.getSize());
+
+        Map<Integer, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        if (withVariants) {
+            for (Map.Entry<Integer, byte[]> variant : downscale(file, type).entrySet()) {
+                String variantPath = baseName + "-w" + variant.getKey() + "." + type.getExtension();
+                pending.put(variant.getKey(), storage.uploadAsync(variantPath, type.getContentType(), variant.getValue()));
+            }
+        }
+
+        String imageUrl = ObjectStorage.await(original);
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        for (Map.Entry<Integer, CompletableFuture<String>> variant : pending.entrySet()) {
+            variants.put(variant.getKey(), ObjectStorage.await(variant.getValue()));
+        }
+        return new StoredImage(imageUrl, variants);
+    }
+
+    // Reads only the header, so a decompression bomb is refused before any pixel is decoded
+    private void checkDimensions(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream(); ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unreadable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                long width = reader.getWidth(0);
+                long height = reader.getHeight(0);
+                if (width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is " + width + "x" + height
+                            + " pixels; at most " + maxPixels + " pixels are allowed");
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unreadable image: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Map<Integer, byte[]> downscale(MultipartFile file, ImageType type) throws IOException {
+        Map<Integer, byte[]> variants = new LinkedHashMap<>();
+        try (InputStream in = file.getInputStream(); ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                return variants;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                int widest = variantWidths.stream().filter(width -> width < sourceWidth).max(Integer::compare).orElse(0);
+                if (widest == 0) {
+                    return variants;
+                }
+
+                // Decode with subsampling so a large photo never lands in memory at full resolution.
+                // The step keeps the widest variant sharp; the height then decides the decoded size,
+                // and a very tall image whose decode would still be too large gets no variants.
+                int step = Math.max(1, sourceWidth / widest);
+                long decodedPixels = (long) ceilDiv(sourceWidth, step) * ceilDiv(sourceHeight, step);
+                if (decodedPixels > maxDecodedPixels) {
+                    logger.info("Skipping variants of a {}x{} image: {} pixels decoded at step {} exceed {}",
+                            sourceWidth, sourceHeight, decodedPixels, step, maxDecodedPixels);
+                    return variants;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                for (int width : variantWidths) {
+                    if (width < sourceWidth) {
+                        variants.put(width, encode(resize(decoded, width, type), type));
+                    }
+                }
+                decoded.flush();
+            } finally {
+                reader.dispose();
+            }
+        }
+        return variants;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, ImageType type) {
+        int height = Math.max(1, Math.round(source.getHeight() * (width / (float) source.getWidth())));
+        BufferedImage target = new BufferedImage(width, height,
+                type == ImageType.PNG ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, ImageType type) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, type.formatName, output);
+        image.flush();
+        return output.toByteArray();
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
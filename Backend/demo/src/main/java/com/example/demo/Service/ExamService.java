@@ -1,26 +1,150 @@
 package com.example.demo.Service;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.Repository.ExamRepository;
+import com.example.demo.dto.ExamPage;
+import com.example.demo.dto.ExamSummary;
 import com.example.demo.model.Exam;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Service
 public class ExamService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExamService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Bounds that stand in for "no filter" / "no cursor" so every page is one index range scan
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    // Shapes the old free-text schedule columns were accepted in
+    private static final Pattern LEGACY_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern LEGACY_TIME = Pattern.compile("\\d{1,2}:\\d{2}(:\\d{2})?");
+    private static final DateTimeFormatter LEGACY_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("H:mm[:ss]").withResolverStyle(ResolverStyle.STRICT);
+
+    /** A serialized exam list and its ETag, so repeat reads skip both the query and Jackson. */
+    public static class CachedExamList {
+        private final byte[] json;
+        private final String etag;
+
+        CachedExamList(byte[] json, String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+
+        public byte[] getJson() { return json; }
+        public String getEtag() { return etag; }
+    }
+
     @Autowired
     private ExamRepository examRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    // Read-through cache for exam listings; any exam write clears it
+    private final Cache<String, CachedExamList> listCache;
+
+    public ExamService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                       @Value("${exams.cache.ttl-seconds:60}") long ttlSeconds,
+                       @Value("${exams.cache.max-entries:500}") long maxEntries) {
+        this.objectMapper = objectMapper;
+        this.listCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, listCache, "exams");
+    }
+
     public List<Exam> getAllExams() {
         return examRepository.findAll();
     }
 
+    public CachedExamList getAllExamsCached() {
+        return listCache.get("all", key -> serialize(examRepository.findAll()));
+    }
+
+    /**
+     * One keyset page of exam summaries ordered by date, optionally narrowed to a subject and
+     * an inclusive date range. Exams without a date are not listed here.
+     */
+    public CachedExamList getExamPage(String subject, LocalDate from, LocalDate to, boolean descending,
+                                      int limit, String cursor) {
+        String normalizedSubject = subject == null || subject.isBlank() ? null : subject.trim();
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String cacheKey = String.join("|", "page", String.valueOf(normalizedSubject), String.valueOf(from),
+                String.valueOf(to), descending ? "desc" : "asc", String.valueOf(size), String.valueOf(cursor));
+
+        return listCache.get(cacheKey, key -> {
+            LocalDate lower = from != null ? from : MIN_DATE;
+            LocalDate upper = to != null ? to : MAX_DATE;
+            LocalDate afterDate = descending ? MAX_DATE : MIN_DATE;
+            UUID afterId = descending ? MAX_ID : MIN_ID;
+            if (cursor != null && !cursor.isBlank()) {
+                String[] position = decodeCursor(cursor);
+                afterDate = LocalDate.parse(position[0]);
+                afterId = UUID.fromString(position[1]);
+            }
+
+            PageRequest page = PageRequest.ofSize(size);
+            List<ExamSummary> items = descending
+                    ? examRepository.findSummariesDescending(normalizedSubject, lower, upper, afterDate, afterId, page)
+                    : examRepository.findSummariesAscending(normalizedSubject, lower, upper, afterDate, afterId, page);
+
+            String nextCursor = null;
+            if (items.size() == size) {
+                ExamSummary last = items.get(items.size() - 1);
+                nextCursor = encodeCursor(last.getDate(), last.getId());
+            }
+            return serialize(new ExamPage(items, nextCursor));
+        });
+    }
+
     public Exam saveExam(Exam exam) {
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        listCache.invalidateAll();
+        return saved;
     }
 
     public Exam updateExam(UUID id, Exam exam) {
@@ -28,11 +152,115 @@ public class ExamService {
             throw new RuntimeException("Exam not found with id: " + id);
         }
         exam.setId(id);
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        listCache.invalidateAll();
+        return saved;
     }
 
     public void deleteExam(UUID id) {
         examRepository.deleteById(id);
+        listCache.invalidateAll();
+    }
+
+    /**
+     * Copies the old free-text date/time columns into the typed ones for rows written before
+     * the switch. Values that are not ISO dates or H:mm[:ss] times, or that have the shape but
+     * are not a real date or time (2024-02-30, 25:00), are left unset. Values are parsed here
+     * rather than cast in SQL so one bad row cannot abort the whole backfill.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTypedSchedule() {
+        try {
+            int dates = 0;
+            int times = 0;
+            if (hasLegacyColumn("date")) {
+                dates = backfill("select id, date from exam where exam_date is null and date is not null",
+                        "update exam set exam_date = ? where id = ?", ExamService::parseLegacyDate);
+            }
+            if (hasLegacyColumn("time")) {
+                times = backfill("select id, time from exam where exam_time is null and time is not null",
+                        "update exam set exam_time = ? where id = ?", ExamService::parseLegacyTime);
+            }
+            if (dates + times > 0) {
+                logger.info("Backfilled typed schedule for exams: {} dates, {} times", dates, times);
+                listCache.invalidateAll();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not backfill exam date/time columns: {}", e.getMessage());
+        }
+    }
+
+    private int backfill(String select, String update, Function<String, Object> parser) {
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query(select, (RowCallbackHandler) rs -> {
+            Object value = parser.apply(rs.getString(2));
+            if (value != null) {
+                rows.add(new Object[] {value, rs.getObject(1)});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(update, rows);
+        }
+        return rows.size();
+    }
+
+    /** A legacy yyyy-MM-dd value as a date, or null if it is not one. */
+    static LocalDate parseLegacyDate(String value) {
+        if (value == null || !LEGACY_DATE.matcher(value.trim()).matches()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** A legacy H:mm or H:mm:ss value as a time, or null if it is not one. */
+    static LocalTime parseLegacyTime(String value) {
+        if (value == null || !LEGACY_TIME.matcher(value.trim()).matches()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(value.trim(), LEGACY_TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean hasLegacyColumn(String column) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where table_name = 'exam' and column_name = ? and data_type in ('character varying', 'text')",
+                Integer.class, column);
+        return count != null && count > 0;
+    }
+
+    private static String encodeCursor(LocalDate date, UUID id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDate.parse(position[0]);
+            UUID.fromString(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private CachedExamList serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16) + "\"";
+            return new CachedExamList(json, etag);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not serialize exams", e);
+        }
     }
-    
-}
\ No newline at end of file
+}
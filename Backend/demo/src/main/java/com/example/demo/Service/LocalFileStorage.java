@@ -0,0 +1,163 @@
+package com.example.demo.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Object storage in a local directory, for running and load-testing without Supabase. Each
+ * upload is streamed to a temp file and moved into place atomically, and the object's MD5 is
+ * kept in a {@code .md5} sidecar so {@link #etag} matches what Supabase would report. Objects
+ * are served by the app itself under {@code /local-storage/}.
+ */
+public class LocalFileStorage implements ObjectStorage {
+
+    private static final String MD5_SUFFIX = ".md5";
+
+    private final Path root;
+    private final String publicBaseUrl;
+    private final ExecutorService ioPool;
+
+    public LocalFileStorage(String root, String publicBaseUrl, int ioThreads) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        AtomicInteger counter = new AtomicInteger();
+        this.ioPool = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "local-storage-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create storage directory " + this.root, e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public String publicUrl(String objectPath) {
+        return publicBaseUrl + "/" + objectPath;
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(String objectPath, String contentType, byte[] bytes) {
+        return uploadAsync(objectPath, contentType, () -> new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(String objectPath, String contentType, ContentSource source, long length) {
+        // Completed by hand so callers of ObjectStorage.await see the StorageException itself
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ioPool.execute(() -> {
+            try (InputStream in = source.open()) {
+                write(objectPath, in);
+                result.complete(publicUrl(objectPath));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> downloadAsync(String objectPath) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        ioPool.execute(() -> {
+            try {
+                result.complete(Files.readAllBytes(resolve(objectPath)));
+            } catch (NoSuchFileException e) {
+                result.completeExceptionally(new StorageException(404, "Object not found: " + objectPath));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Optional<String> etag(String objectPath) throws IOException {
+        try {
+            return Optional.of(Files.readString(md5File(resolve(objectPath))).trim());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        Path start = resolve(prefix.isEmpty() ? "." : prefix);
+        if (!Files.isDirectory(start)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(start)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().endsWith(MD5_SUFFIX))
+                    .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                    .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Streams {@code in} into the object at {@code objectPath}, replacing it atomically; returns its MD5. */
+    public String write(String objectPath, InputStream in) throws IOException {
+        Path target = resolve(objectPath);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            try (DigestInputStream digesting = new DigestInputStream(in, md5)) {
+                Files.copy(digesting, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String etag = HexFormat.of().formatHex(md5.digest());
+            Files.writeString(md5File(target), etag);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return etag;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Resolves an object path under the root, refusing anything that would escape it. */
+    public Path resolve(String objectPath) throws StorageException {
+        Path resolved = root.resolve(objectPath).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new StorageException(400, "Invalid object path: " + objectPath);
+        }
+        return resolved;
+    }
+
+    private static Path md5File(Path object) {
+        return object.resolveSibling(object.getFileName() + MD5_SUFFIX);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioPool.shutdown();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Where certificates, previews and exam images are stored. {@code storage.backend} picks the
+ * implementation: {@code supabase} (default), {@code local} for a directory on disk, or
+ * {@code stub} for the Supabase client talking to an embedded stand-in server.
+ */
+public interface ObjectStorage {
+
+    /** Opens the content to upload; called again if the upload is retried. */
+    @FunctionalInterface
+    interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    String publicUrl(String objectPath);
+
+    /** Stores {@code bytes} at {@code objectPath}, replacing any existing object; completes with its public URL. */
+    CompletableFuture<String> uploadAsync(String objectPath, String contentType, byte[] bytes);
+
+    /** As {@link #uploadAsync(String, String, byte[])}, streaming {@code length} bytes from {@code source}. */
+    CompletableFuture<String> uploadAsync(String objectPath, String contentType, ContentSource source, long length);
+
+    /** Uploads and waits; returns the public URL of the stored object. */
+    default String upload(String objectPath, String contentType, byte[] bytes) throws IOException, InterruptedException {
+        return await(uploadAsync(objectPath, contentType, bytes));
+    }
+
+    /** Reads a whole object; fails with a {@link StorageException} of status 404 if it does not exist. */
+    CompletableFuture<byte[]> downloadAsync(String objectPath);
+
+    /** Returns the hex MD5 of the stored object, or empty if it does not exist. */
+    Optional<String> etag(String objectPath) throws IOException, InterruptedException;
+
+    /** Returns the paths of all objects under {@code prefix}, including those in nested folders. */
+    List<String> list(String prefix) throws IOException, InterruptedException;
+
+    static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+}
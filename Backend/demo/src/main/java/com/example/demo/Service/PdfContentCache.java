@@ -0,0 +1,229 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed store for rendered certificate PDFs.
+ *
+ * <p>A certificate's key hashes everything that affects its bytes (template version, user
+ * fields, subject, percentage, date). Two tiers sit behind it: a disk LRU of rendered PDFs
+ * bounded by {@code max-bytes}, and an in-memory map of which key (and MD5) this instance
+ * last uploaded to each storage path. That map is only a hint: another replica, a regenerated
+ * download or a manual edit may have replaced the object since, so callers confirm the MD5
+ * against storage's ETag before skipping. An unchanged row then costs one metadata request
+ * instead of a render and an upload.
+ */
+@Component
+public class PdfContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfContentCache.class);
+    private static final String SUFFIX = ".pdf";
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxUploadedEntries;
+
+    // key -> file size, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private static final class UploadedObject {
+        private final String key;
+        private final String md5;
+
+        UploadedObject(String key, String md5) {
+            this.key = key;
+            this.md5 = md5;
+        }
+    }
+
+    private final Map<String, UploadedObject> uploaded;
+
+    public PdfContentCache(@Value("${certificates.pdf-cache.enabled:true}") boolean enabled,
+                           @Value("${certificates.pdf-cache.dir:${java.io.tmpdir}/certificate-cache}") String dir,
+                           @Value("${certificates.pdf-cache.max-bytes:536870912}") long maxBytes,
+                           @Value("${certificates.pdf-cache.max-uploaded-entries:100000}") int maxUploadedEntries) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.maxBytes = maxBytes;
+        this.maxUploadedEntries = maxUploadedEntries;
+        this.uploaded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UploadedObject> eldest) {
+                return size() > PdfContentCache.this.maxUploadedEntries;
+            }
+        };
+        if (enabled) {
+            loadIndex();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String md5Hex(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The MD5 of what this instance last uploaded to {@code objectPath}, if that was the content
+     * behind {@code key}. Compare it with the stored object's ETag before relying on it.
+     */
+    public Optional<String> uploadedDigest(String objectPath, String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (uploaded) {
+            UploadedObject object = uploaded.get(objectPath);
+            return object != null && object.key.equals(key) ? Optional.of(object.md5) : Optional.empty();
+        }
+    }
+
+    public void markUploaded(String objectPath, String key, String md5) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (uploaded) {
+            uploaded.put(objectPath, new UploadedObject(key, md5));
+        }
+    }
+
+    /** The cached bytes of whatever was last uploaded to {@code objectPath}, if still on disk. */
+    public Optional<byte[]> getUploaded(String objectPath) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        UploadedObject object;
+        synchronized (uploaded) {
+            object = uploaded.get(objectPath);
+        }
+        return object == null ? Optional.empty() : get(object.key);
+    }
+
+    public Optional<byte[]> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(pdf);
+        } catch (IOException e) {
+            synchronized (this) {
+                Long size = entries.remove(key);
+                if (size != null) {
+                    currentBytes -= size;
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, byte[] pdf) {
+        if (!enabled || pdf.length > maxBytes) {
+            return;
+        }
+        Path file = dir.resolve(key + SUFFIX);
+        try {
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            Files.write(tmp, pdf);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not cache certificate {}: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, (long) pdf.length);
+            currentBytes += pdf.length - (previous != null ? previous : 0);
+            evictOverflow();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(dir.resolve(entry.getKey() + SUFFIX));
+            } catch (IOException e) {
+                logger.warn("Could not evict cached certificate {}: {}", entry.getKey(), e.getMessage());
+            }
+            currentBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void loadIndex() {
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                        .sorted(Comparator.comparing(PdfContentCache::lastModified))
+                        .forEach(path -> {
+                            String name = path.getFileName().toString();
+                            long size = path.toFile().length();
+                            entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                            currentBytes += size;
+                        });
+            }
+            evictOverflow();
+            logger.info("Certificate cache at {}: {} entries, {} bytes", dir, entries.size(), currentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open certificate cache at " + dir, e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -1,101 +1,197 @@
 package com.example.demo.Service;
 
-import com.itextpdf.io.source.ByteArrayOutputStream;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.dto.CertificateRequest;
+import com.example.demo.dto.CsvRowResult;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
+/**
+ * Streams a certificate CSV (columns {@code userId, percentage} plus optional
+ * {@code subject, templateName}) through the batch engine in fixed-size chunks. Only one
+ * chunk of requests is held at a time, so memory does not grow with the file, and each
+ * row's outcome is reported as soon as it is known. A caller whose client has gone away can
+ * cancel the import; it stops before the next chunk.
+ */
 @Service
-@RequiredArgsConstructor
 public class ProcessCsvPdfService {
 
-//    private final SupabaseService supabaseService;
-//    private static final Logger logger = LoggerFactory.getLogger(ProcessCsvPdfService.class);
-//
-//    public List<String> processCsvAndGeneratePdfs(MultipartFile file) {
-//        List<String> uploadedUrls = new ArrayList<>();
-//
-//        try (
-//            Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8);
-//            CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())
-//        ) {
-//            for (CSVRecord record : csvParser) {
-//                if (record.isConsistent()) {
-//                    String name = record.get("name");
-//                    String percentage = record.get("percentage");
-////                    String contact = record.get("contactNo");
-////
-////                    if (isBlank(name) || isBlank(email)) {
-////                        logger.warn("Skipping record due to missing required fields: {}", record);
-////                        continue;
-////                    }
-//
-//                    byte[] pdfBytes = generatePdf(name, percentage);
-//                    String safeName = sanitizeFileName(name);
-//                    String fileName = safeName + "_" + System.currentTimeMillis() + ".pdf";
-//
-//                    String uploadedUrl = supabaseService.uploadPdf(fileName, pdfBytes);
-//                    uploadedUrls.add(uploadedUrl);
-//                } else {
-//                    logger.warn("Skipping inconsistent record: {}", record);
-//                }
-//            }
-//        } catch (Exception e) {
-//            logger.error("Error while processing CSV and generating PDFs", e);
-//            throw new RuntimeException("Failed to process CSV and generate PDFs", e);
-//        }
-//
-//        return uploadedUrls;
-//    }
-//
-//    private byte[] generatePdf(String name, String percentage) {
-//        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-//            PdfWriter writer = new PdfWriter(baos);
-//            PdfDocument pdf = new PdfDocument(writer);
-//            Document document = new Document(pdf);
-//
-//            document.add(new Paragraph("User Report"));
-//            document.add(new Paragraph("Name: " + name));
-//            document.add(new Paragraph("Email: " + percentage));
-////            document.add(new Paragraph("Contact: " + contact));
-//
-//            document.close();
-//            return baos.toByteArray();
-//        } catch (Exception e) {
-//            logger.error("PDF generation failed for: {}", name, e);
-//            throw new RuntimeException("PDF generation failed", e);
-//        }
-//    }
-//
-//    private String sanitizeFileName(String name) {
-//        return name.replaceAll("[^a-zA-Z0-9_\\-]", "_");
-//    }
-//
-//    private boolean isBlank(String str) {
-//        return str == null || str.trim().isEmpty();
-//    }
-//}
-    
-    
-
-    
-    
-    
-    
-    
-}
\ No newline at end of file
+    private static final Logger logger = LoggerFactory.getLogger(ProcessCsvPdfService.class);
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    public static class ImportSummary {
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile boolean cancelled;
+
+        public long getRows() { return rows.get(); }
+        public long getSucceeded() { return succeeded.get(); }
+        public long getFailed() { return failed.get(); }
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    private final CertificateTemplateService certificateService;
+    private final int chunkSize;
+
+    public ProcessCsvPdfService(CertificateTemplateService certificateService,
+                                @Value("${certificates.csv.chunk-size:500}") int chunkSize) {
+        this.certificateService = certificateService;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportSummary processCsv(Reader reader, String defaultSubject, String defaultTemplate,
+                                    Consumer<CsvRowResult> sink) throws IOException, InterruptedException {
+        return processCsv(reader, defaultSubject, defaultTemplate, sink, () -> false);
+    }
+
+    /**
+     * @param defaultSubject used when the CSV has no {@code subject} column or the cell is blank
+     * @param defaultTemplate used when the CSV has no {@code templateName} column or the cell is blank
+     * @param sink receives one result per row; called from pipeline threads, must be thread-safe
+     * @param cancelled checked between chunks; once true no further rows are read or rendered
+     */
+    public ImportSummary processCsv(Reader reader, String defaultSubject, String defaultTemplate,
+                                    Consumer<CsvRowResult> sink, BooleanSupplier cancelled)
+            throws IOException, InterruptedException {
+        ImportSummary summary = new ImportSummary();
+        List<CertificateRequest> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkRows = new ArrayList<>(chunkSize);
+
+        try (CSVParser parser = FORMAT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                if (cancelled.getAsBoolean()) {
+                    summary.cancelled = true;
+                    break;
+                }
+                long row = record.getRecordNumber();
+                summary.rows.incrementAndGet();
+                try {
+                    chunk.add(toRequest(record, defaultSubject, defaultTemplate));
+                    chunkRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    summary.failed.incrementAndGet();
+                    sink.accept(CsvRowResult.error(row, parseUserIdOrNull(record), e.getMessage()));
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flushChunk(chunk, chunkRows, summary, sink);
+                }
+            }
+        }
+        if (summary.cancelled || cancelled.getAsBoolean()) {
+            summary.cancelled = true;
+            logger.info("CSV import cancelled after {} rows, {} succeeded, {} failed",
+                    summary.getRows(), summary.getSucceeded(), summary.getFailed());
+            return summary;
+        }
+        flushChunk(chunk, chunkRows, summary, sink);
+
+        logger.info("CSV import finished: {} rows, {} succeeded, {} failed",
+                summary.getRows(), summary.getSucceeded(), summary.getFailed());
+        return summary;
+    }
+
+    private void flushChunk(List<CertificateRequest> chunk, List<Long> chunkRows, ImportSummary summary,
+                            Consumer<CsvRowResult> sink) throws InterruptedException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        certificateService.processCertificates(chunk, new ItemListener() {
+            @Override
+            public void onSuccess(int index, CertificateRequest request) {
+                summary.succeeded.incrementAndGet();
+                sink.accept(CsvRowResult.ok(chunkRows.get(index), request));
+            }
+
+            @Override
+            public void onFailure(int index, CertificateRequest request, Throwable error) {
+                summary.failed.incrementAndGet();
+                sink.accept(CsvRowResult.error(chunkRows.get(index), request.getUserId(), error.getMessage()));
+            }
+        });
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    private static CertificateRequest toRequest(CSVRecord record, String defaultSubject, String defaultTemplate) {
+        if (!record.isConsistent()) {
+            throw new IllegalArgumentException("Expected " + record.getParser().getHeaderNames().size()
+                    + " columns but found " + record.size());
+        }
+        String userId = column(record, "userId", null);
+        String percentage = column(record, "percentage", null);
+        String subject = column(record, "subject", defaultSubject);
+        String templateName = column(record, "templateName", defaultTemplate);
+
+        if (isBlank(userId)) {
+            throw new IllegalArgumentException("Missing userId");
+        }
+        if (isBlank(percentage)) {
+            throw new IllegalArgumentException("Missing percentage");
+        }
+        if (isBlank(subject)) {
+            throw new IllegalArgumentException("Missing subject");
+        }
+        if (isBlank(templateName)) {
+            throw new IllegalArgumentException("Missing templateName");
+        }
+
+        CertificateRequest request = new CertificateRequest();
+        try {
+            request.setUserId(Long.parseLong(userId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid userId: " + userId);
+        }
+        double value;
+        try {
+            value = Double.parseDouble(percentage.endsWith("%") ? percentage.substring(0, percentage.length() - 1) : percentage);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid percentage: " + percentage);
+        }
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("Percentage out of range: " + percentage);
+        }
+        request.setPercentage(percentage);
+        request.setSubject(subject);
+        request.setTemplateName(templateName);
+        return request;
+    }
+
+    private static String column(CSVRecord record, String name, String fallback) {
+        String value = record.isMapped(name) && record.isSet(name) ? record.get(name) : null;
+        return isBlank(value) ? fallback : value;
+    }
+
+    private static Long parseUserIdOrNull(CSVRecord record) {
+        try {
+            return Long.parseLong(column(record, "userId", null));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String str) {
+        return str == null || str.trim().isEmpty();
+    }
+}
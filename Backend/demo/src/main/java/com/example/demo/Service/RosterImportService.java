@@ -0,0 +1,171 @@
+package com.example.demo.Service;
+
+import com.example.demo.dto.UserRowResult;
+import com.example.demo.model.User;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streams a class roster CSV (columns {@code name, email, password} plus optional
+ * {@code phone, school, class}) into the users table a chunk at a time. Each chunk's
+ * passwords are hashed in parallel and its rows written as JDBC batches, and every row's
+ * outcome, including duplicate emails, is reported without stopping the import.
+ *
+ * <p>Roster passwords are hashed at {@code users.roster.bcrypt-strength}, which defaults to the
+ * login cost {@code security.bcrypt.strength}. A lower roster cost is an explicit opt-in for
+ * very large imports; such hashes are upgraded the first time the student signs in, and until
+ * then are cheaper to crack if the table leaks.
+ */
+@Service
+public class RosterImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterImportService.class);
+
+    private static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    public static class ImportSummary {
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        public long getRows() { return rows.get(); }
+        public long getCreated() { return created.get(); }
+        public long getConflicts() { return conflicts.get(); }
+        public long getFailed() { return failed.get(); }
+    }
+
+    private final UserService userService;
+    private final PasswordHashingService passwordHashing;
+    private final PasswordEncoder rosterEncoder;
+    private final int chunkSize;
+
+    public RosterImportService(UserService userService, PasswordHashingService passwordHashing,
+                               @Value("${users.roster.bcrypt-strength:${security.bcrypt.strength:10}}") int bcryptStrength,
+                               @Value("${users.roster.chunk-size:2000}") int chunkSize) {
+        this.userService = userService;
+        this.passwordHashing = passwordHashing;
+        this.rosterEncoder = new BCryptPasswordEncoder(bcryptStrength);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param sink receives one result per row as soon as its outcome is known; rows rejected
+     *             while reading come ahead of earlier rows still waiting in the current chunk,
+     *             so order by {@link UserRowResult#getRow()} where file order matters
+     */
+    public ImportSummary importRoster(Reader reader, Consumer<UserRowResult> sink) throws IOException {
+        ImportSummary summary = new ImportSummary();
+        Set<String> seenEmails = new HashSet<>();
+        List<User> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkRows = new ArrayList<>(chunkSize);
+
+        try (CSVParser parser = FORMAT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                long row = record.getRecordNumber();
+                summary.rows.incrementAndGet();
+                try {
+                    User user = toUser(record);
+                    if (!seenEmails.add(user.getEmail().toLowerCase(Locale.ROOT))) {
+                        summary.conflicts.incrementAndGet();
+                        sink.accept(UserRowResult.conflict(row, user.getEmail(), "Duplicate email in roster"));
+                        continue;
+                    }
+                    chunk.add(user);
+                    chunkRows.add(row);
+                } catch (IllegalArgumentException e) {
+                    summary.failed.incrementAndGet();
+                    sink.accept(UserRowResult.error(row, column(record, "email"), e.getMessage()));
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    flushChunk(chunk, chunkRows, summary, sink);
+                }
+            }
+        }
+        flushChunk(chunk, chunkRows, summary, sink);
+
+        logger.info("Roster import finished: {} rows, {} created, {} conflicts, {} failed",
+                summary.getRows(), summary.getCreated(), summary.getConflicts(), summary.getFailed());
+        return summary;
+    }
+
+    private void flushChunk(List<User> chunk, List<Long> chunkRows, ImportSummary summary,
+                            Consumer<UserRowResult> sink) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<String> hashes = passwordHashing.encodeAll(chunk.stream().map(User::getPassword).toList(), rosterEncoder);
+        for (UserRowResult result : userService.insertUsers(chunk, chunkRows, hashes)) {
+            if ("ok".equals(result.getStatus())) {
+                summary.created.incrementAndGet();
+            } else {
+                summary.conflicts.incrementAndGet();
+            }
+            sink.accept(result);
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    private static User toUser(CSVRecord record) {
+        if (!record.isConsistent()) {
+            throw new IllegalArgumentException("Expected " + record.getParser().getHeaderNames().size()
+                    + " columns but found " + record.size());
+        }
+        String name = column(record, "name");
+        String email = column(record, "email");
+        String password = column(record, "password");
+
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("Missing name");
+        }
+        if (isBlank(email) || !email.contains("@")) {
+            throw new IllegalArgumentException("Missing or invalid email");
+        }
+        if (isBlank(password)) {
+            throw new IllegalArgumentException("Missing password");
+        }
+
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setPhone(column(record, "phone"));
+        user.setSchool(column(record, "school"));
+        user.setUserClass(column(record, "class"));
+        return user;
+    }
+
+    private static String column(CSVRecord record, String name) {
+        String value = record.isMapped(name) && record.isSet(name) ? record.get(name) : null;
+        return isBlank(value) ? null : value;
+    }
+
+    private static boolean isBlank(String str) {
+        return str == null || str.trim().isEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+
+/** A storage call that completed with an error status (HTTP semantics, whatever the backend). */
+public class StorageException extends IOException {
+    private final int statusCode;
+
+    public StorageException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() { return statusCode; }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded stand-in for the Supabase Storage REST API, backed by a {@link LocalFileStorage}
+ * directory. The real {@link SupabaseStorageClient} talks to it over HTTP, so its connection
+ * handling, concurrency cap and retries are exercised exactly as in production, while each
+ * response can be delayed by {@code latency-ms} (plus up to {@code jitter-ms}) and failed with
+ * {@code error-status} at {@code error-rate}.
+ *
+ * <p>Supports upload (PUT/POST {@code /storage/v1/object/{bucket}/{path}}), HEAD with an MD5
+ * ETag, listing ({@code /storage/v1/object/list/{bucket}?prefix=}, one folder level per call
+ * like Supabase) and public reads ({@code /storage/v1/object/public/{bucket}/{path}}).
+ */
+public class StorageStubServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageStubServer.class);
+
+    private static final String OBJECT = "/storage/v1/object/";
+    private static final String LIST = OBJECT + "list/";
+    private static final String PUBLIC = OBJECT + "public/";
+
+    private final LocalFileStorage files;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final int errorStatus;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    public StorageStubServer(LocalFileStorage files, int port, long latencyMs, long jitterMs,
+                             double errorRate, int errorStatus) throws IOException {
+        this.files = files;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "storage-stub-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(OBJECT, this::handle);
+        server.start();
+        logger.info("Storage stub listening on {} (latency {} ms +{} ms, {}% errors), objects in {}",
+                url(), latencyMs, jitterMs, errorRate * 100, files.getRoot());
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequests() { return requests.get(); }
+    public long getInjectedErrors() { return injectedErrors.get(); }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            requests.incrementAndGet();
+            delay();
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                body.transferTo(OutputStream.nullOutputStream());
+                respond(exchange, errorStatus, "{\"error\":\"injected failure\"}");
+                return;
+            }
+
+            if (path.startsWith(LIST)) {
+                list(exchange);
+            } else if (path.startsWith(PUBLIC)) {
+                read(exchange, objectPath(path.substring(PUBLIC.length())));
+            } else if ("PUT".equals(method) || "POST".equals(method)) {
+                String objectPath = objectPath(path.substring(OBJECT.length()));
+                String etag = files.write(objectPath, body);
+                exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+                respond(exchange, 200, objectMapper.writeValueAsString(Map.of("Key", objectPath)));
+            } else if ("HEAD".equals(method)) {
+                Optional<String> etag = files.etag(objectPath(path.substring(OBJECT.length())));
+                if (etag.isPresent()) {
+                    exchange.getResponseHeaders().set("ETag", "\"" + etag.get() + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+            } else if ("GET".equals(method)) {
+                read(exchange, objectPath(path.substring(OBJECT.length())));
+            } else {
+                respond(exchange, 405, "{\"error\":\"method not allowed\"}");
+            }
+        } catch (StorageException e) {
+            respond(exchange, e.getStatusCode(), "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String prefix = "";
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("prefix=")) {
+                    prefix = URLDecoder.decode(pair.substring("prefix=".length()), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        String folder = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+
+        // One level, as Supabase does: files with an id, sub-folders with a null id
+        Map<String, Map<String, Object>> entries = new LinkedHashMap<>();
+        for (String objectPath : files.list(folder)) {
+            String rest = objectPath.substring(folder.length());
+            int slash = rest.indexOf('/');
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", slash < 0 ? rest : rest.substring(0, slash));
+            entry.put("id", slash < 0 ? objectPath : null);
+            entries.putIfAbsent((String) entry.get("name"), entry);
+        }
+        respond(exchange, 200, objectMapper.writeValueAsString(new ArrayList<>(entries.values())));
+    }
+
+    private void read(HttpExchange exchange, String objectPath) throws IOException {
+        Path file = files.resolve(objectPath);
+        if (!Files.isRegularFile(file)) {
+            respond(exchange, 404, "{\"error\":\"not found\"}");
+            return;
+        }
+        String contentType = Files.probeContentType(file);
+        exchange.getResponseHeaders().set("Content-Type", contentType != null ? contentType : "application/octet-stream");
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(file, out);
+        }
+    }
+
+    // Strips the bucket name: "{bucket}/{path}" -> "{path}"
+    private static String objectPath(String bucketAndPath) throws StorageException {
+        int slash = bucketAndPath.indexOf('/');
+        if (slash < 0 || slash == bucketAndPath.length() - 1) {
+            throw new StorageException(400, "Missing object path");
+        }
+        return URLDecoder.decode(bucketAndPath.substring(slash + 1), StandardCharsets.UTF_8);
+    }
+
+    private void delay() throws InterruptedException {
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
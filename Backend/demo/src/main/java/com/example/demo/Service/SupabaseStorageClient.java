@@ -0,0 +1,272 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.demo.config.VirtualThreads;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single HTTP/2 client for Supabase Storage shared by every upload and listing call, so
+ * connections and TLS sessions are reused. Requests go out with {@code sendAsync}, at most
+ * {@code max-in-flight} at a time, and 429/5xx responses or I/O errors are retried with
+ * exponential backoff and full jitter. A server's {@code Retry-After} is honoured, but both it
+ * and the backoff are capped at {@code max-retry-delay-ms}.
+ *
+ * <p>Every attempt, retries included, is timed as {@code storage.requests} tagged with the
+ * HTTP method, status and outcome, so the error rate is the share of non-SUCCESS outcomes.
+ * Request bodies are counted in {@code storage.bytes.out} and retries in {@code storage.retries}.
+ */
+public class SupabaseStorageClient implements ObjectStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseStorageClient.class);
+
+    private final String supabaseUrl;
+    private final String apiKey;
+    private final String bucket;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final long retryBaseDelayMs;
+    private final long maxRetryDelayMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final ExecutorService httpExecutor;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService retryScheduler;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesOut;
+    private final Counter retries;
+
+    public SupabaseStorageClient(String supabaseUrl, String apiKey, String bucket, int maxInFlight,
+                                 long connectTimeoutMs, long requestTimeoutMs, int maxRetries,
+                                 long retryBaseDelayMs, long maxRetryDelayMs, boolean virtualThreads,
+                                 MeterRegistry meterRegistry) {
+        this.supabaseUrl = supabaseUrl;
+        this.apiKey = apiKey;
+        this.bucket = bucket;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxRetries = maxRetries;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.maxRetryDelayMs = Math.max(retryBaseDelayMs, maxRetryDelayMs);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.meterRegistry = meterRegistry;
+        this.bytesOut = Counter.builder("storage.bytes.out")
+                .baseUnit("bytes")
+                .description("Request body bytes sent to storage, retries included")
+                .register(meterRegistry);
+        this.retries = Counter.builder("storage.retries").register(meterRegistry);
+        // In virtual-thread mode response handling and retries run on virtual threads too
+        this.httpExecutor = virtualThreads && VirtualThreads.isSupported()
+                ? VirtualThreads.newPerTaskExecutor("storage-") : null;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (httpExecutor != null) {
+            builder.executor(httpExecutor);
+        }
+        this.httpClient = builder.build();
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String publicUrl(String objectPath) {
+        return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + objectPath;
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(String objectPath, String contentType, byte[] bytes) {
+        return uploadAsync(objectPath, contentType, HttpRequest.BodyPublishers.ofByteArray(bytes));
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(String objectPath, String contentType, ContentSource source, long length) {
+        // The supplier is called again for each retry, reopening the source every time
+        return uploadAsync(objectPath, contentType, HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return source.open();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }), length));
+    }
+
+    public CompletableFuture<String> uploadAsync(String objectPath, String contentType, HttpRequest.BodyPublisher body) {
+        HttpRequest request = authorized(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + objectPath))
+                .header("Content-Type", contentType)
+                .PUT(body)
+                .build();
+        return sendAsync(request).thenApply(response -> publicUrl(objectPath));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> downloadAsync(String objectPath) {
+        HttpRequest request = authorized(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + objectPath))
+                .GET()
+                .build();
+        return sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(HttpResponse::body);
+    }
+
+    /** Returns the stored object's ETag without quotes, or empty if the object does not exist. */
+    @Override
+    public Optional<String> etag(String objectPath) throws IOException, InterruptedException {
+        HttpRequest request = authorized(URI.create(supabaseUrl + "/storage/v1/object/" + bucket + "/" + objectPath))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            return ObjectStorage.await(sendAsync(request)).headers().firstValue("ETag")
+                    .map(etag -> etag.replace("W/", "").replace("\"", ""));
+        } catch (StorageException e) {
+            if (e.getStatusCode() == 400 || e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    /** Walks {@code prefix} one folder per request, as Supabase lists; entries without an id are folders. */
+    @Override
+    public List<String> list(String prefix) throws IOException, InterruptedException {
+        String folder = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        HttpRequest request = authorized(URI.create(supabaseUrl + "/storage/v1/object/list/" + bucket
+                + "?prefix=" + URLEncoder.encode(folder, StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+        List<Map<String, Object>> entries = objectMapper.readValue(ObjectStorage.await(sendAsync(request)).body(),
+                new TypeReference<List<Map<String, Object>>>() {});
+
+        List<String> paths = new ArrayList<>();
+        for (Map<String, Object> entry : entries) {
+            String name = (String) entry.get("name");
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            if (entry.get("id") == null) {
+                paths.addAll(list(folder + name + "/"));
+            } else {
+                paths.add(folder + name);
+            }
+        }
+        return paths;
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        attempt(request, bodyHandler, 0, result);
+        return result.whenComplete((response, error) -> inFlight.release());
+    }
+
+    private <T> void attempt(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, int attempt,
+                             CompletableFuture<HttpResponse<T>> result) {
+        long start = System.nanoTime();
+        request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength)
+                .filter(length -> length > 0)
+                .ifPresent(bytesOut::increment);
+        httpClient.sendAsync(request, bodyHandler).whenComplete((response, error) -> {
+            record(request, response, start);
+            boolean retryable = error != null || response.statusCode() == 429 || response.statusCode() >= 500;
+            if (retryable && attempt < maxRetries) {
+                long delay = backoffMillis(attempt, response);
+                retries.increment();
+                logger.debug("Retrying {} {} in {} ms (attempt {}): {}", request.method(), request.uri().getPath(),
+                        delay, attempt + 1, error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                retryScheduler.schedule(() -> attempt(request, bodyHandler, attempt + 1, result), delay, TimeUnit.MILLISECONDS);
+            } else if (error != null) {
+                result.completeExceptionally(error);
+            } else if (response.statusCode() / 100 != 2) {
+                result.completeExceptionally(new StorageException(response.statusCode(), request.method() + " "
+                        + request.uri().getPath() + " failed with status " + response.statusCode() + ": " + describe(response.body())));
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    private static String describe(Object body) {
+        return body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(body);
+    }
+
+    private void record(HttpRequest request, HttpResponse<?> response, long start) {
+        String status = response != null ? String.valueOf(response.statusCode()) : "IO_ERROR";
+        String outcome = response == null ? "UNKNOWN"
+                : response.statusCode() / 100 == 2 ? "SUCCESS"
+                : response.statusCode() / 100 == 4 ? "CLIENT_ERROR" : "SERVER_ERROR";
+        Timer.builder("storage.requests")
+                .tag("method", request.method())
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private long backoffMillis(int attempt, HttpResponse<?> response) {
+        if (response != null) {
+            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+            // A hostile or broken server could otherwise park the request for days
+            if (retryAfter != null && !retryAfter.isEmpty() && retryAfter.length() <= 9
+                    && retryAfter.chars().allMatch(Character::isDigit)) {
+                return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter)), maxRetryDelayMs);
+            }
+        }
+        long ceiling = Math.min(retryBaseDelayMs << Math.min(attempt, 10), maxRetryDelayMs);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private HttpRequest.Builder authorized(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("apikey", apiKey)
+                .header("Authorization", "Bearer " + apiKey);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+        }
+    }
+}
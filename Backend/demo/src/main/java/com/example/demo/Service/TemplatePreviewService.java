@@ -0,0 +1,223 @@
+package com.example.demo.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.Repository.CertificateTemplateRepository;
+import com.example.demo.Service.CertificateRenderer.CompiledTemplate;
+import com.example.demo.Service.CertificateRenderer.PreviewTier;
+import com.example.demo.model.CertificateTemplate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Live previews of a template filled with sample values, as HTML or as a PNG of one preview
+ * tier. Results are kept in a byte-bounded LRU keyed on template source hash, format, size and
+ * the sample values, so a designer flipping between a few variants pays for each render once.
+ * The ETag is derived from that key alone, so a conditional GET is answered without rendering.
+ * It is not free: {@link #resolve} still loads the template row, and for a classpath template
+ * the renderer re-reads and re-hashes the source at most once per {@code revalidate-ms}.
+ * That check is what makes an edited template produce a new ETag instead of a stale 304.
+ */
+@Service
+public class TemplatePreviewService {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMMM yyyy");
+    private static final int MAX_VALUE_LENGTH = 200;
+
+    // The variables certificates are rendered with, in key order
+    public static final List<String> SAMPLE_FIELDS = List.of("name", "email", "phone", "percentage", "subject", "date");
+
+    public enum Format {
+        HTML("text/html;charset=UTF-8"),
+        PNG("image/png");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() { return contentType; }
+    }
+
+    /** A resolved preview request; its ETag is known before anything is rendered. */
+    public static class PreviewRequest {
+        private final CompiledTemplate template;
+        private final Format format;
+        private final PreviewTier tier;
+        private final Map<String, Object> variables;
+        private final String key;
+        private final String etag;
+
+        PreviewRequest(CompiledTemplate template, Format format, PreviewTier tier,
+                       Map<String, Object> variables, String key, String etag) {
+            this.template = template;
+            this.format = format;
+            this.tier = tier;
+            this.variables = variables;
+            this.key = key;
+            this.etag = etag;
+        }
+
+        public Format getFormat() { return format; }
+        public String getEtag() { return etag; }
+    }
+
+    public static class Preview {
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+
+        Preview(byte[] body, String contentType, String etag) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getContentType() { return contentType; }
+        public String getEtag() { return etag; }
+    }
+
+    private final CertificateRenderer renderer;
+    private final CertificateTemplateRepository templateRepository;
+    private final Cache<String, Preview> previews;
+
+    public TemplatePreviewService(CertificateRenderer renderer, CertificateTemplateRepository templateRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${certificates.preview-cache.max-bytes:67108864}") long maxBytes) {
+        this.renderer = renderer;
+        this.templateRepository = templateRepository;
+        this.previews = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Preview preview) -> preview.getBody().length + key.length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, previews, "certificates.previews");
+    }
+
+    /**
+     * Resolves {@code templateRef} (a template id or name) and the sample values; missing ones
+     * fall back to the John Doe defaults. {@code version} previews a stored version that need
+     * not be live yet; null means the live one. Throws IllegalArgumentException for an unknown
+     * template, version, format or size, or an over-long value.
+     */
+    public PreviewRequest resolve(String templateRef, Integer version, String format, String size,
+                                  Map<String, String> sample) {
+        CertificateTemplate template = findTemplate(templateRef);
+        CompiledTemplate compiled = version != null
+                ? renderer.compileStored(template.getId(), version)
+                : renderer.compile(template);
+        Format previewFormat = parseFormat(format);
+        PreviewTier tier = previewFormat == Format.PNG ? parseTier(size) : null;
+
+        Map<String, Object> variables = sampleVariables();
+        for (String field : SAMPLE_FIELDS) {
+            String value = sample.get(field);
+            if (value != null) {
+                if (value.length() > MAX_VALUE_LENGTH) {
+                    throw new IllegalArgumentException("Sample value for " + field + " is longer than "
+                            + MAX_VALUE_LENGTH + " characters");
+                }
+                variables.put(field, value);
+            }
+        }
+
+        StringBuilder key = new StringBuilder()
+                .append(template.getId()).append('|')
+                .append(compiled.getVersion() != null ? compiled.getVersion() : renderer.sourceVersion(template)).append('|')
+                .append(previewFormat).append('|')
+                .append(tier == null ? "" : tier.getSuffix());
+        // Length-prefixed so no choice of values can collide with another
+        variables.forEach((field, value) -> key.append('|').append(value.toString().length()).append(':').append(value));
+        String cacheKey = key.toString();
+        return new PreviewRequest(compiled, previewFormat, tier, variables, cacheKey, etag(cacheKey));
+    }
+
+    /** The default sample values, in {@link #SAMPLE_FIELDS} order. */
+    public static Map<String, Object> sampleVariables() {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("name", "John Doe");
+        variables.put("email", "john@example.com");
+        variables.put("phone", "1234567890");
+        variables.put("percentage", "95%");
+        variables.put("subject", "Mathematics");
+        variables.put("date", LocalDate.now().format(DATE_FORMAT));
+        return variables;
+    }
+
+    public Preview render(PreviewRequest request) throws IOException {
+        try {
+            return previews.get(request.key, key -> {
+                try {
+                    return new Preview(renderBody(request), request.format.getContentType(), request.etag);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private byte[] renderBody(PreviewRequest request) throws IOException {
+        if (request.format == Format.HTML) {
+            return renderer.renderHtml(request.template, request.variables).getBytes(StandardCharsets.UTF_8);
+        }
+        return renderer.renderPreview(renderer.renderPdf(request.template, request.variables), request.tier);
+    }
+
+    private CertificateTemplate findTemplate(String templateRef) {
+        try {
+            long id = Long.parseLong(templateRef);
+            return templateRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + id));
+        } catch (NumberFormatException e) {
+            return templateRepository.findFirstByNameOrderByIdAsc(templateRef)
+                    .orElseThrow(() -> new IllegalArgumentException("Template not found: " + templateRef));
+        }
+    }
+
+    private static Format parseFormat(String format) {
+        for (Format candidate : Format.values()) {
+            if (candidate.name().equalsIgnoreCase(format)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown preview format: " + format + " (use html or png)");
+    }
+
+    private static PreviewTier parseTier(String size) {
+        for (PreviewTier tier : PreviewTier.values()) {
+            if (tier.getSuffix().equalsIgnoreCase(size)) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("Unknown preview size: " + size + " (use thumb, card or full)");
+    }
+
+    private static String etag(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.demo.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.Repository.CertificateTemplateRepository;
+import com.example.demo.Repository.CertificateTemplateVersionRepository;
+import com.example.demo.Service.CertificateRenderer.CompiledTemplate;
+import com.example.demo.model.CertificateTemplate;
+import com.example.demo.model.CertificateTemplateVersion;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stores certificate templates as versioned HTML in the database and puts new versions live
+ * without a restart. An upload is saved as the next version and handed to a background
+ * compiler, which parses it once and renders a sample certificate with it. Only then is the
+ * template's {@code currentVersion} switched over in a single row update, so no request ever
+ * sees a version that failed to compile and the first renders after the swap find it already
+ * parsed. A version that fails is kept with its error and never goes live.
+ *
+ * <p>Batches read {@code currentVersion} once when they start and jobs record it per item, so
+ * work already running keeps the version it began with. Other instances pick up the new
+ * version the next time they load the template row and compile it on first use.
+ */
+@Service
+public class TemplateRegistryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateRegistryService.class);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    public static class UploadResult {
+        private final CertificateTemplate template;
+        private final CertificateTemplateVersion version;
+        private final boolean unchanged;
+
+        UploadResult(CertificateTemplate template, CertificateTemplateVersion version, boolean unchanged) {
+            this.template = template;
+            this.version = version;
+            this.unchanged = unchanged;
+        }
+
+        public CertificateTemplate getTemplate() { return template; }
+        public CertificateTemplateVersion getVersion() { return version; }
+        public boolean isUnchanged() { return unchanged; }
+    }
+
+    private final CertificateTemplateRepository templateRepository;
+    private final CertificateTemplateVersionRepository versionRepository;
+    private final CertificateRenderer renderer;
+    private final CertificateTemplateService templateService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBytes;
+    private final ExecutorService compilePool;
+
+    public TemplateRegistryService(CertificateTemplateRepository templateRepository,
+                                   CertificateTemplateVersionRepository versionRepository,
+                                   CertificateRenderer renderer, CertificateTemplateService templateService,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${certificates.templates.max-bytes:524288}") int maxBytes) {
+        this.templateRepository = templateRepository;
+        this.versionRepository = versionRepository;
+        this.renderer = renderer;
+        this.templateService = templateService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBytes = maxBytes;
+        // One at a time: compiles are rare, and this keeps them off the render pools
+        this.compilePool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "template-compile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renderer.setTemplateSource(this::loadSource);
+    }
+
+    /**
+     * Saves {@code html} as the next version of template {@code templateId}, or of a new
+     * template called {@code name} when the id is null, and starts compiling it. Returns at once;
+     * the version goes live when its compile succeeds. Uploading the same HTML as the latest
+     * version again returns that version instead of adding one. HTML that breaks the
+     * {@link TemplateSourcePolicy} is refused with IllegalArgumentException.
+     *
+     * <p>The template row and the version are saved in one transaction, and compiling starts
+     * only after it commits. If another instance takes the same version number first, the
+     * upload is tried once more above it; a second clash is thrown as the
+     * DataIntegrityViolationException.
+     */
+    public synchronized UploadResult upload(Long templateId, String name, String description, String html) {
+        if (html == null || html.isBlank()) {
+            throw new IllegalArgumentException("Template file is empty");
+        }
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException("Template is larger than " + maxBytes + " bytes");
+        }
+        TemplateSourcePolicy.check(html);
+        String hash = sha256(bytes);
+
+        UploadResult result;
+        try {
+            result = transactionTemplate.execute(status -> saveVersion(templateId, name, description, html, hash));
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Version number of template {} taken concurrently, retrying upload", templateId);
+            result = transactionTemplate.execute(status -> saveVersion(templateId, name, description, html, hash));
+        }
+        if (!result.isUnchanged()) {
+            Long id = result.getTemplate().getId();
+            int number = result.getVersion().getVersion();
+            CompletableFuture.runAsync(() -> compileAndActivate(id, number, false), compilePool);
+        }
+        return result;
+    }
+
+    private UploadResult saveVersion(Long templateId, String name, String description, String html, String hash) {
+        CertificateTemplate template;
+        if (templateId != null) {
+            template = templateRepository.findById(templateId)
+                    .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + templateId));
+        } else {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("A name is required for a new template");
+            }
+            template = new CertificateTemplate();
+            template.setName(name.trim());
+            template.setDescription(description);
+            template = templateRepository.save(template);
+        }
+
+        CertificateTemplateVersion latest = versionRepository.findFirstByTemplateIdOrderByVersionDesc(template.getId())
+                .orElse(null);
+        if (latest != null && latest.getContentHash().equals(hash) && latest.getStatus() != CertificateTemplateVersion.Status.FAILED) {
+            return new UploadResult(template, latest, true);
+        }
+
+        CertificateTemplateVersion version = new CertificateTemplateVersion();
+        version.setTemplateId(template.getId());
+        version.setVersion(latest == null ? 1 : latest.getVersion() + 1);
+        version.setContent(html);
+        version.setContentHash(hash);
+        version.setStatus(CertificateTemplateVersion.Status.COMPILING);
+        version.setCreatedAt(Instant.now());
+        // Flushed here so a clash on uk_template_version surfaces inside the transaction
+        version = versionRepository.saveAndFlush(version);
+        return new UploadResult(template, version, false);
+    }
+
+    /** Puts an existing version live again (for example to roll back), compiling it first. */
+    public CompletableFuture<Void> activate(Long templateId, int version) {
+        CertificateTemplateVersion stored = versionRepository.findByTemplateIdAndVersion(templateId, version)
+                .orElseThrow(() -> new IllegalArgumentException("Template " + templateId + " has no version " + version));
+        return CompletableFuture.runAsync(() -> compileAndActivate(templateId, stored.getVersion(), true), compilePool);
+    }
+
+    public List<CertificateTemplateVersion> versions(Long templateId) {
+        return versionRepository.findByTemplateIdOrderByVersionDesc(templateId);
+    }
+
+    private void compileAndActivate(Long templateId, int version, boolean rollback) {
+        long start = System.nanoTime();
+        try {
+            CompiledTemplate compiled = renderer.compileStored(templateId, version);
+            // A full sample render also catches templates that parse but cannot be laid out
+            renderer.renderPdf(compiled, TemplatePreviewService.sampleVariables());
+
+            int updated = rollback
+                    ? templateRepository.activateVersion(templateId, version)
+                    : templateRepository.activateIfNewer(templateId, version);
+            versionRepository.markCompiled(templateId, version, CertificateTemplateVersion.Status.READY, null,
+                    updated > 0 ? Instant.now() : null);
+            if (updated > 0) {
+                renderer.retireStoredVersions(templateId, version);
+            }
+            logger.atInfo().addKeyValue("templateId", templateId).addKeyValue("version", version)
+                    .addKeyValue("live", updated > 0)
+                    .addKeyValue("compileMs", (System.nanoTime() - start) / 1_000_000)
+                    .log("Template version compiled");
+        } catch (Exception e) {
+            logger.warn("Template {} version {} failed to compile: {}", templateId, version, e.getMessage());
+            String message = String.valueOf(e.getMessage());
+            versionRepository.markCompiled(templateId, version, CertificateTemplateVersion.Status.FAILED,
+                    message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message, null);
+            return;
+        }
+
+        // The stored preview images are stale now; refresh them the way startup warm-up does
+        try {
+            templateService.generateAndUploadPreviewImage(templateId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not refresh previews for template {}: {}", templateId, e.getMessage());
+        }
+    }
+
+    private String loadSource(Long templateId, int version) {
+        return versionRepository.findByTemplateIdAndVersion(templateId, version)
+                .map(CertificateTemplateVersion::getContent)
+                .orElseThrow(() -> new IllegalArgumentException("Template " + templateId + " has no version " + version));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compilePool.shutdownNow();
+    }
+}
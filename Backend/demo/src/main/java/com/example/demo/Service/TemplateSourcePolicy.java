@@ -0,0 +1,81 @@
+package com.example.demo.Service;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What uploaded template HTML may contain. Templates are processed by a Spring-aware Thymeleaf
+ * engine, so an unrestricted expression could reach beans, static methods or reflection, and
+ * the HTML itself is served back by the preview endpoint. Only the handful of {@code th:}
+ * attributes a certificate needs are accepted, and their expressions may read variables and
+ * call the formatting utilities but not construct objects, name types, reach beans or
+ * preprocess. Unescaped output and active content are refused outright.
+ *
+ * <p>Classpath templates ship with the application and are not checked.
+ */
+final class TemplateSourcePolicy {
+
+    private static final Set<String> ALLOWED_ATTRIBUTES = Set.of(
+            "text", "if", "unless", "each", "with", "object", "block", "remove",
+            "class", "classappend", "style", "styleappend", "src", "alt", "title");
+
+    private static final Set<String> ALLOWED_UTILITIES = Set.of(
+            "strings", "numbers", "dates", "temporals", "calendars", "bools", "lists", "sets", "maps",
+            "arrays", "aggregates");
+
+    private static final Pattern TH_ATTRIBUTE = Pattern.compile(
+            "\\s(?:th:|data-th-)([\\w-]+)\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s>]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INLINE_ESCAPED = Pattern.compile("\\[\\[(.*?)]]", Pattern.DOTALL);
+    private static final Pattern INLINE_UNESCAPED = Pattern.compile("\\[\\((.*?)\\)]", Pattern.DOTALL);
+    // A utility or context object being used, as opposed to a colour like '#1d4ed8' in a literal
+    private static final Pattern UTILITY = Pattern.compile("#([a-zA-Z_]\\w*)\\s*(?=[.\\[(])");
+    private static final Pattern FORBIDDEN_EXPRESSION = Pattern.compile(
+            "\\bT\\s*\\(|\\bnew\\b|@\\w|__|\\bclass\\b|getClass|forName|classLoader", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ACTIVE_CONTENT = Pattern.compile(
+            "<\\s*(script|iframe|object|embed|base)\\b|\\son\\w+\\s*=|javascript:", Pattern.CASE_INSENSITIVE);
+
+    private TemplateSourcePolicy() {
+    }
+
+    /** Throws IllegalArgumentException naming the first thing {@code html} may not contain. */
+    static void check(String html) {
+        Matcher active = ACTIVE_CONTENT.matcher(html);
+        if (active.find()) {
+            throw new IllegalArgumentException("Template may not contain " + active.group().trim());
+        }
+        if (INLINE_UNESCAPED.matcher(html).find()) {
+            throw new IllegalArgumentException("Template may not use unescaped [( ... )] inlining");
+        }
+
+        Matcher attribute = TH_ATTRIBUTE.matcher(html);
+        while (attribute.find()) {
+            String name = attribute.group(1).toLowerCase(Locale.ROOT);
+            if (!ALLOWED_ATTRIBUTES.contains(name)) {
+                throw new IllegalArgumentException("Template may not use th:" + name
+                        + "; allowed are th:" + String.join(", th:", ALLOWED_ATTRIBUTES.stream().sorted().toList()));
+            }
+            checkExpression("th:" + name, attribute.group(2));
+        }
+        Matcher inline = INLINE_ESCAPED.matcher(html);
+        while (inline.find()) {
+            checkExpression("[[ ... ]]", inline.group(1));
+        }
+    }
+
+    private static void checkExpression(String where, String expression) {
+        Matcher forbidden = FORBIDDEN_EXPRESSION.matcher(expression);
+        if (forbidden.find()) {
+            throw new IllegalArgumentException("Template expression in " + where + " may not use '"
+                    + forbidden.group() + "'");
+        }
+        Matcher utility = UTILITY.matcher(expression);
+        while (utility.find()) {
+            if (!ALLOWED_UTILITIES.contains(utility.group(1))) {
+                throw new IllegalArgumentException("Template expression in " + where + " may not use #"
+                        + utility.group(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Issues and checks stateless HS256 tokens (JWT compact form). Verified tokens are kept in a
+ * small cache with their claims, so a client that sends the same token on every request pays
+ * one map lookup, or one HMAC on a miss, instead of BCrypt plus a user query.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    public static class TokenClaims {
+        private final Long id;
+        private final String userId;
+        private final String email;
+        private final User.Role role;
+        private final Instant expiresAt;
+
+        TokenClaims(Long id, String userId, String email, User.Role role, Instant expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.email = email;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        public Long getId() { return id; }
+        public String getUserId() { return userId; }
+        public String getEmail() { return email; }
+        public User.Role getRole() { return role; }
+        public Instant getExpiresAt() { return expiresAt; }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Cache<String, TokenClaims> verified;
+
+    @Autowired
+    public TokenService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                        @Value("${security.token.secret:}") String secret,
+                        @Value("${security.token.ttl-minutes:720}") long ttlMinutes,
+                        @Value("${security.token.cache-size:10000}") long cacheSize) {
+        this(objectMapper, meterRegistry, secret, ttlMinutes, cacheSize, Clock.systemUTC());
+    }
+
+    TokenService(ObjectMapper objectMapper, MeterRegistry meterRegistry, String secret, long ttlMinutes,
+                 long cacheSize, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            logger.warn("security.token.secret is not set; using a random key, tokens will not survive a restart");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret);
+            if (keyBytes.length < 32) {
+                throw new IllegalStateException("security.token.secret must be at least 256 bits (base64)");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(Math.min(ttlMinutes, 10)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "auth.tokens");
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(User user) {
+        Instant now = clock.instant();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(user.getId()));
+        claims.put("uid", user.getUserId());
+        claims.put("email", user.getEmail());
+        claims.put("role", (user.getRole() != null ? user.getRole() : User.Role.STUDENT).name());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        try {
+            String signingInput = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not issue token", e);
+        }
+    }
+
+    /** Returns the token's claims, or empty when it is malformed, forged or expired. */
+    public Optional<TokenClaims> verify(String token) {
+        TokenClaims claims = verified.getIfPresent(token);
+        if (claims == null) {
+            claims = parse(token);
+            if (claims == null) {
+                return Optional.empty();
+            }
+            verified.put(token, claims);
+        }
+        if (claims.getExpiresAt().isBefore(clock.instant())) {
+            verified.invalidate(token);
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    private TokenClaims parse(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot || !token.startsWith(HEADER + ".")) {
+            return null;
+        }
+        try {
+            byte[] expected = sign(token.substring(0, lastDot));
+            if (!MessageDigest.isEqual(expected, DECODER.decode(token.substring(lastDot + 1)))) {
+                return null;
+            }
+            Map<String, Object> claims = objectMapper.readValue(DECODER.decode(token.substring(firstDot + 1, lastDot)),
+                    new TypeReference<Map<String, Object>>() {});
+            // Tokens issued before roles existed carry none and get the least privilege
+            Object role = claims.get("role");
+            return new TokenClaims(Long.valueOf((String) claims.get("sub")), (String) claims.get("uid"),
+                    (String) claims.get("email"), role == null ? User.Role.STUDENT : User.Role.valueOf((String) role),
+                    Instant.ofEpochSecond(((Number) claims.get("exp")).longValue()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String signingInput) throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -1,50 +1,184 @@
 package com.example.demo.Service;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.Repository.UserRepository;
+import com.example.demo.dto.BulkRegistrationResult;
+import com.example.demo.dto.UserRowResult;
 import com.example.demo.model.User;
 
 @Service
 public class UserService {
 
-    
+    // The id is drawn from the table's own sequence up front so the public user id
+    // ("user" + id) goes into the same INSERT instead of a second UPDATE
+    private static final String INSERT_RETURNING =
+            "with next_id as (select nextval(pg_get_serial_sequence('users', 'id')) as id) "
+            + "insert into users (id, user_id, name, email, phone, school, class, password) "
+            + "select id, 'user' || id, ?, ?, ?, ?, ?, ? from next_id "
+            + "returning id, user_id, name, email, phone, school, class, password";
+
+    private static final String ALLOCATE_IDS =
+            "select nextval(pg_get_serial_sequence('users', 'id')) from generate_series(1, ?)";
+
+    private static final String INSERT_IF_ABSENT =
+            "insert into users (id, user_id, name, email, phone, school, class, password) values ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    // Rows skipped by the conflict clause are absent from what comes back
+    private static final String RETURNING_INSERTED = " on conflict (email) do nothing returning email";
+    // The driver accepts at most 32767 bind parameters per statement, 8 per row
+    private static final int MAX_ROWS_PER_INSERT = 32767 / 8;
+
     @Autowired
     private UserRepository userRepository;
-    
+
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashing;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${users.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    @Value("${users.bulk.max-size:5000}")
+    private int bulkMaxSize;
 
-    @Transactional
     public User registerUser(User user) throws Exception {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new Exception("Email already registered");
+        if (user.getEmail() == null || user.getPassword() == null) {
+            throw new Exception("Email and password are required");
         }
 
         // Hash the password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        
-        user = userRepository.save(user);
-        String generatedUserId = "user" + user.getId();
-        user.setUserId(generatedUserId);
-        user = userRepository.save(user);
+        String hash = passwordHashing.encode(user.getPassword());
 
-        return user;
+        // The unique constraint on email decides duplicates; no existsByEmail round trip
+        try {
+            return jdbcTemplate.queryForObject(INSERT_RETURNING, UserService::mapUser,
+                    user.getName(), user.getEmail(), user.getPhone(), user.getSchool(), user.getUserClass(), hash);
+        } catch (DuplicateKeyException e) {
+            throw new Exception("Email already registered");
+        }
     }
+
+    /** Registers a class at once; rows without an email or password are reported and skipped. */
+    public BulkRegistrationResult registerUsers(List<User> users) {
+        if (users.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("At most " + bulkMaxSize + " users per request");
+        }
+
+        List<UserRowResult> results = new ArrayList<>(users.size());
+        List<Integer> validRows = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (isBlank(user.getEmail()) || isBlank(user.getPassword())) {
+                results.add(UserRowResult.error(i + 1, user.getEmail(), "Email and password are required"));
+            } else {
+                validRows.add(i);
+                results.add(null);
+            }
+        }
+
+        List<String> hashes = passwordHashing.encodeAll(validRows.stream().map(i -> users.get(i).getPassword()).toList());
+        List<User> valid = validRows.stream().map(users::get).toList();
+        List<Long> rowNumbers = validRows.stream().map(i -> (long) i + 1).toList();
+
+        int created = 0;
+        for (UserRowResult result : insertUsers(valid, rowNumbers, hashes)) {
+            results.set((int) result.getRow() - 1, result);
+            if ("ok".equals(result.getStatus())) {
+                created++;
+            }
+        }
+        return new BulkRegistrationResult(created, users.size() - created, results);
+    }
+
+    /**
+     * Inserts already-validated users with their precomputed hashes. Ids come from one sequence
+     * query and rows go out as multi-row inserts of {@code users.bulk.batch-size}; a row whose
+     * email already exists (or repeats an earlier row) comes back as a conflict and the rest of
+     * its batch still goes in. Which rows went in is read from {@code returning email} rather
+     * than from JDBC update counts, which a driver rewriting batches may not report per row.
+     */
+    public List<UserRowResult> insertUsers(List<User> users, List<Long> rowNumbers, List<String> hashes) {
+        List<UserRowResult> results = new ArrayList<>(users.size());
+        if (users.isEmpty()) {
+            return results;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, users.size());
+
+        int batchSize = Math.max(1, Math.min(bulkBatchSize, MAX_ROWS_PER_INSERT));
+        for (int start = 0; start < users.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, users.size());
+            StringBuilder sql = new StringBuilder(INSERT_IF_ABSENT);
+            List<Object> args = new ArrayList<>((end - start) * 8);
+            for (int k = start; k < end; k++) {
+                User user = users.get(k);
+                Long id = ids.get(k);
+                sql.append(k == start ? "" : ", ").append(INSERT_ROW);
+                Collections.addAll(args, id, "user" + id, user.getName(), user.getEmail(), user.getPhone(),
+                        user.getSchool(), user.getUserClass(), hashes.get(k));
+            }
+            sql.append(RETURNING_INSERTED);
+
+            Set<String> inserted = new HashSet<>(jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray()));
+            for (int k = start; k < end; k++) {
+                String email = users.get(k).getEmail();
+                // remove() so a second row with the same email is reported as the conflict it was
+                if (!inserted.remove(email)) {
+                    results.add(UserRowResult.conflict(rowNumbers.get(k), email, "Email already registered"));
+                } else {
+                    results.add(UserRowResult.ok(rowNumbers.get(k), email, "user" + ids.get(k)));
+                }
+            }
+        }
+        return results;
+    }
+
      // Add this new method for login
     public User loginUser(String email, String password) throws Exception {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new Exception("User not found with email: " + email));
-        
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+
+        if (!passwordHashing.matches(password, user.getPassword())) {
             throw new Exception("Invalid password");
         }
-        
+
+        // Hashed at an older cost factor: rehash now that we have the plain password
+        if (passwordHashing.needsUpgrade(user.getPassword())) {
+            Long id = user.getId();
+            String oldHash = user.getPassword();
+            passwordHashing.encodeInBackground(password, newHash -> userRepository.upgradePassword(id, oldHash, newHash));
+        }
         return user;
     }
-    
 
-}
\ No newline at end of file
+    private static User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setUserId(rs.getString("user_id"));
+        user.setName(rs.getString("name"));
+        user.setEmail(rs.getString("email"));
+        user.setPhone(rs.getString("phone"));
+        user.setSchool(rs.getString("school"));
+        user.setUserClass(rs.getString("class"));
+        user.setPassword(rs.getString("password"));
+        return user;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.ApplicationStartup;
+
+/**
+ * Reports background preview warm-up progress under /actuator/health/previewWarmup.
+ * Always UP: a slow or partly failed warm-up must not take the instance out of rotation.
+ */
+@Component
+public class PreviewWarmupHealthIndicator implements HealthIndicator {
+
+    private final ApplicationStartup startup;
+
+    public PreviewWarmupHealthIndicator(ApplicationStartup startup) {
+        this.startup = startup;
+    }
+
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("state", startup.getState())
+                .withDetail("templates", startup.getTotal())
+                .withDetail("completed", startup.getCompleted())
+                .withDetail("failed", startup.getFailed())
+                .build();
+    }
+}
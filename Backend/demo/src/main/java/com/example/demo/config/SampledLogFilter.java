@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback turbo filter that lets at most {@code maxPerSecond} events per logger and message
+ * pattern through each second, so a failing dependency produces a sample of its per-item
+ * warnings instead of one line per certificate. ERROR events always pass. Configured in
+ * {@code logback-spring.xml} from {@code logging.sampling.max-per-second}.
+ */
+public class SampledLogFilter extends TurboFilter {
+
+    private static final int MAX_TRACKED_PATTERNS = 10_000;
+
+    private int maxPerSecond = 20;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    private static final class Window {
+        private long second;
+        private int count;
+
+        synchronized boolean tryAcquire(long now, int limit) {
+            if (now != second) {
+                second = now;
+                count = 0;
+            }
+            return ++count <= limit;
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (maxPerSecond <= 0 || level == null || format == null || level.isGreaterOrEqual(Level.ERROR)) {
+            return FilterReply.NEUTRAL;
+        }
+        // Disabled levels are rejected later anyway; don't let them use up the budget
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (windows.size() > MAX_TRACKED_PATTERNS) {
+            windows.clear();
+        }
+        Window window = windows.computeIfAbsent(logger.getName() + '|' + format, key -> new Window());
+        return window.tryAcquire(System.currentTimeMillis() / 1000, maxPerSecond) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import com.example.demo.Service.TokenService;
+
 import java.util.List;
 
 @Configuration
@@ -18,37 +26,54 @@ import java.util.List;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http
             .cors()
             .and()
             .csrf(csrf -> csrf.disable())
+            // Stateless: every request is authenticated by the bearer token issued at /api/login
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+            // Missing or invalid token: 401 so the frontend knows to log in again
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
             .authorizeHttpRequests(auth -> auth
+                // Creating accounts in bulk and reading metrics are for staff only
+                .requestMatchers("/api/signup/bulk", "/api/users/roster").hasAnyRole("ADMIN", "TEACHER")
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "TEACHER")
+                // Template source is code the renderer runs, so only admins may change what is live
+                .requestMatchers("/api/templates/upload", "/api/templates/*/versions",
+                    "/api/templates/*/versions/**").hasRole("ADMIN")
+                // Issuing certificates, their jobs, the catalog as a whole and exam changes are staff work.
+                // Students (anyone can sign up as one) keep the lookups and ZIPs of their own certificates,
+                // which the controller narrows to their own student key.
+                .requestMatchers("/api/templates/generate", "/api/templates/export", "/api/templates/jobs/**",
+                    "/api/templates/generate-preview/**", "/api/templates/certificates/all",
+                    "/api/templates/certificates/catalog/**", "/api/pdf/upload", "/api/upload/image")
+                    .hasAnyRole("ADMIN", "TEACHER")
+                .requestMatchers(HttpMethod.POST, "/api/exams", "/api/exams/**").hasAnyRole("ADMIN", "TEACHER")
+                .requestMatchers(HttpMethod.PUT, "/api/exams/**").hasAnyRole("ADMIN", "TEACHER")
+                .requestMatchers(HttpMethod.DELETE, "/api/exams/**").hasAnyRole("ADMIN", "TEACHER")
                 .requestMatchers(
-                   "/api/signup",
+                    "/api/signup",
                     "/api/login",
-                    "/api/exams",
-                    "/api/exams/**", // Allow PUT /api/exams/{id}
-                    "/api/upload/image",
-
-                    "/uploads/**",
                     // ✅ Allow image URL access
-                    "/api/pdf/upload",
-                    "/api/templates/upload",
-                    
-                    "/api/certificates/**",
-                    "/api/templates/**"
-
+                    "/uploads/**",
+                    "/local-storage/**"
                 ).permitAll()
+                // Exams can be browsed without an account
+                .requestMatchers(HttpMethod.GET, "/api/exams", "/api/exams/**").permitAll()
                 .anyRequest().authenticated()
             );
 
         return http.build();
     }
 
+    // Raising the cost only affects new hashes; older ones are upgraded on the next login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
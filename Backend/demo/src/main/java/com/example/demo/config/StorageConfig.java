@@ -0,0 +1,99 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.demo.Service.LocalFileStorage;
+import com.example.demo.Service.ObjectStorage;
+import com.example.demo.Service.StorageStubServer;
+import com.example.demo.Service.SupabaseStorageClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Picks the {@link ObjectStorage} from {@code storage.backend}:
+ * <ul>
+ *   <li>{@code supabase} (default) - the real bucket;</li>
+ *   <li>{@code local} - files under {@code storage.local.dir}, served back at {@code /local-storage/**};</li>
+ *   <li>{@code stub} - the Supabase client against an embedded {@link StorageStubServer} with
+ *       configurable latency and error injection, for load tests.</li>
+ * </ul>
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "supabase", matchIfMissing = true)
+    public SupabaseStorageClient supabaseStorage(
+            @Value("${supabase.url}") String supabaseUrl,
+            @Value("${supabase.api-key}") String apiKey,
+            @Value("${supabase.bucket-name}") String bucket,
+            @Value("${supabase.storage.max-in-flight:32}") int maxInFlight,
+            @Value("${supabase.storage.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${supabase.storage.request-timeout-ms:30000}") long requestTimeoutMs,
+            @Value("${supabase.storage.max-retries:3}") int maxRetries,
+            @Value("${supabase.storage.retry-base-delay-ms:200}") long retryBaseDelayMs,
+            @Value("${supabase.storage.max-retry-delay-ms:10000}") long maxRetryDelayMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        return new SupabaseStorageClient(supabaseUrl, apiKey, bucket, maxInFlight, connectTimeoutMs,
+                requestTimeoutMs, maxRetries, retryBaseDelayMs, maxRetryDelayMs, virtualThreads, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+    public LocalFileStorage localStorage(@Value("${storage.local.dir:./storage}") String dir,
+                                         @Value("${storage.local.public-url:http://localhost:8081/local-storage}") String publicUrl,
+                                         @Value("${storage.local.io-threads:8}") int ioThreads) {
+        return new LocalFileStorage(dir, publicUrl, ioThreads);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+    public WebMvcConfigurer localStorageResources(LocalFileStorage localStorage) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                registry.addResourceHandler("/local-storage/**")
+                        .addResourceLocations(localStorage.getRoot().toUri().toString());
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "stub")
+    public StorageStubServer storageStubServer(@Value("${storage.local.dir:./storage}") String dir,
+                                               @Value("${storage.local.io-threads:8}") int ioThreads,
+                                               @Value("${storage.stub.port:0}") int port,
+                                               @Value("${storage.stub.latency-ms:0}") long latencyMs,
+                                               @Value("${storage.stub.jitter-ms:0}") long jitterMs,
+                                               @Value("${storage.stub.error-rate:0}") double errorRate,
+                                               @Value("${storage.stub.error-status:503}") int errorStatus) throws IOException {
+        // The stub serves its own public reads, so the files' public URL is never used
+        LocalFileStorage files = new LocalFileStorage(dir, "http://127.0.0.1/", ioThreads);
+        return new StorageStubServer(files, port, latencyMs, jitterMs, errorRate, errorStatus);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "stub")
+    public SupabaseStorageClient stubbedSupabaseStorage(
+            StorageStubServer stub,
+            @Value("${supabase.bucket-name}") String bucket,
+            @Value("${supabase.storage.max-in-flight:32}") int maxInFlight,
+            @Value("${supabase.storage.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${supabase.storage.request-timeout-ms:30000}") long requestTimeoutMs,
+            @Value("${supabase.storage.max-retries:3}") int maxRetries,
+            @Value("${supabase.storage.retry-base-delay-ms:200}") long retryBaseDelayMs,
+            @Value("${supabase.storage.max-retry-delay-ms:10000}") long maxRetryDelayMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+        return new SupabaseStorageClient(stub.url(), "stub-key", bucket, maxInFlight, connectTimeoutMs,
+                requestTimeoutMs, maxRetries, retryBaseDelayMs, maxRetryDelayMs, virtualThreads, meterRegistry);
+    }
+}
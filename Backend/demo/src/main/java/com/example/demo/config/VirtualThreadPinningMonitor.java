@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * In virtual-thread mode, watches JFR's {@code jdk.VirtualThreadPinned} event: a virtual
+ * thread that blocks while pinned to its carrier (inside {@code synchronized} or a native
+ * frame) holds a platform thread just like the old pool did. Each pin longer than the
+ * threshold is counted in {@code virtual.threads.pinned} and logged with its top frames.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final int LOGGED_FRAMES = 6;
+
+    private final boolean virtualThreads;
+    private final boolean enabled;
+    private final Duration threshold;
+    private final Counter pinned;
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                       @Value("${execution.pinning-monitor.enabled:true}") boolean enabled,
+                                       @Value("${execution.pinning-monitor.threshold-ms:20}") long thresholdMs) {
+        this.virtualThreads = virtualThreads;
+        this.enabled = enabled;
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinned = Counter.builder("virtual.threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!virtualThreads) {
+            return;
+        }
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                    + "request handling and storage I/O stay on platform threads", Runtime.version().feature());
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        logger.info("Watching for virtual thread pinning longer than {} ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        StringBuilder frames = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream().limit(LOGGED_FRAMES).forEach(frame -> frames.append("\n\tat ")
+                    .append(describe(frame)));
+        }
+        logger.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), frames);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
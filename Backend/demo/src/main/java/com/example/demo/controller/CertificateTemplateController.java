@@ -1,52 +1,82 @@
 
 package com.example.demo.controller;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.ui.Model;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.Service.CertificateBundleService;
+import com.example.demo.Service.CertificateBundleService.BundleResult;
+import com.example.demo.Service.CertificateBundleService.EntrySource;
+import com.example.demo.Service.CertificateCatalogService;
+import com.example.demo.Service.CertificateJobService;
 import com.example.demo.Service.CertificateTemplateService;
+import com.example.demo.Service.CertificateTemplateService.MergedExport;
+import com.example.demo.Service.TemplatePreviewService;
+import com.example.demo.Service.TemplatePreviewService.Preview;
+import com.example.demo.Service.TemplatePreviewService.PreviewRequest;
+import com.example.demo.Service.TemplateRegistryService;
+import com.example.demo.Service.TemplateRegistryService.UploadResult;
+import com.example.demo.Service.TokenService.TokenClaims;
+import com.example.demo.dto.CertificateJobItemPage;
 import com.example.demo.dto.CertificateRequest;
+import com.example.demo.dto.TemplateVersionResponse;
+import com.example.demo.model.CertificateCatalogEntry;
+import com.example.demo.model.CertificateJob;
+import com.example.demo.model.CertificateJobItem;
 import com.example.demo.model.CertificateTemplate;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.model.User;
 
 @RestController
 @RequestMapping("/api/templates")
 public class CertificateTemplateController {
 
+    private static final Logger logger = LoggerFactory.getLogger(CertificateTemplateController.class);
+
     private final CertificateTemplateService service;
 
-    @Value("${supabase.url}")
-    private String supabaseUrl;
+    private final CertificateJobService jobService;
+
+    private final CertificateCatalogService catalogService;
 
-    @Value("${supabase.bucket}")
-    private String bucket;
+    private final CertificateBundleService bundleService;
 
-    @Value("${supabase.key}")
-    private String supabaseKey;
+    private final TemplatePreviewService previewService;
+
+    private final TemplateRegistryService registry;
 
     @Autowired
-    public CertificateTemplateController(CertificateTemplateService service) {
+    public CertificateTemplateController(CertificateTemplateService service, CertificateJobService jobService,
+                                         CertificateCatalogService catalogService, CertificateBundleService bundleService,
+                                         TemplatePreviewService previewService, TemplateRegistryService registry) {
         this.service = service;
+        this.jobService = jobService;
+        this.catalogService = catalogService;
+        this.bundleService = bundleService;
+        this.previewService = previewService;
+        this.registry = registry;
     }
 
     public static class ApiResponse {
@@ -65,6 +95,20 @@ public class CertificateTemplateController {
         public void setMessage(String message) { this.message = message; }
     }
 
+    public static class JobAcceptedResponse extends ApiResponse {
+        private UUID jobId;
+        private String statusUrl;
+
+        public JobAcceptedResponse(UUID jobId, int itemCount) {
+            super("accepted", "Queued " + itemCount + " certificates as job " + jobId);
+            this.jobId = jobId;
+            this.statusUrl = "/api/templates/jobs/" + jobId;
+        }
+
+        public UUID getJobId() { return jobId; }
+        public String getStatusUrl() { return statusUrl; }
+    }
+
     @PostMapping(value = "/generate", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ApiResponse> generateAndUploadCertificates(@RequestBody List<CertificateRequest> requests) {
         try {
@@ -73,30 +117,181 @@ public class CertificateTemplateController {
                         .body(new ApiResponse("error", "Request body is empty or invalid"));
             }
 
-            service.processCertificates(requests);
+            CertificateJob job = jobService.submit(requests);
 
-            return ResponseEntity.ok(
-                    new ApiResponse("success", "Generated and uploaded " + requests.size() + " certificates")
-            );
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest()
-                    .body(new ApiResponse("error", "Invalid input: " + e.getMessage()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new JobAcceptedResponse(job.getId(), job.getTotalItems()));
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to queue certificate job", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse("error", "Internal server error: " + e.getMessage()));
         }
     }
 
+    public static class ExportResponse extends ApiResponse {
+        private final MergedExport export;
+
+        public ExportResponse(String status, String message, MergedExport export) {
+            super(status, message);
+            this.export = export;
+        }
+
+        public String getUrl() { return export.getUrl(); }
+        public int getCertificates() { return export.getCertificates(); }
+        public int getPages() { return export.getPages(); }
+        public long getBytes() { return export.getBytes(); }
+        public List<String> getFailures() { return export.getFailures(); }
+    }
+
+    /** Renders a whole class or subject into one printable PDF and returns its URL. */
+    @PostMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse> exportMergedPdf(@RequestBody List<CertificateRequest> requests,
+                                                       @RequestParam(defaultValue = "certificates") String name) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", "Request body is empty or invalid"));
+        }
+        try {
+            MergedExport export = service.exportMergedPdf(requests, name);
+            if (export.getCertificates() == 0) {
+                return ResponseEntity.badRequest()
+                        .body(new ExportResponse("error", "No certificates could be rendered", export));
+            }
+            return ResponseEntity.ok(new ExportResponse("success", "Exported " + export.getCertificates()
+                    + " certificates on " + export.getPages() + " pages", export));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Failed to export merged certificates", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Export failed: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJobStatus(@PathVariable UUID jobId) {
+        try {
+            return ResponseEntity.ok(jobService.getStatus(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse("error", e.getMessage()));
+        }
+    }
+
+    /** Item outcomes in pages of up to 500, e.g. {@code ?status=FAILED&after=199&limit=100}. */
+    @GetMapping("/jobs/{jobId}/items")
+    public ResponseEntity<CertificateJobItemPage> getJobItems(@PathVariable UUID jobId,
+                                                              @RequestParam(required = false) CertificateJobItem.Status status,
+                                                              @RequestParam(required = false) Integer after,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(jobService.getItems(jobId, status, after, limit));
+    }
+
+    /**
+     * Live preview of a template (id or name) with sample values taken from the query string,
+     * e.g. {@code ?format=png&size=card&name=Asha}; {@code version} previews a stored version
+     * before it goes live. Unchanged previews answer 304.
+     */
     @GetMapping("/preview/{templateName}")
-    public String previewTemplate(@PathVariable String templateName, Model model) {
-        model.addAttribute("name", "John Doe");
-        model.addAttribute("email", "john@example.com");
-        model.addAttribute("phone", "1234567890");
-        model.addAttribute("percentage", "95%");
-        model.addAttribute("subject", "Mathematics");
-        model.addAttribute("date", LocalDate.now().format(DateTimeFormatter.ofPattern("dd MMMM yyyy")));
-        return templateName;
+    public ResponseEntity<?> previewTemplate(@PathVariable String templateName,
+                                             @RequestParam(defaultValue = "html") String format,
+                                             @RequestParam(defaultValue = "card") String size,
+                                             @RequestParam(required = false) Integer version,
+                                             @RequestParam Map<String, String> sample,
+                                             WebRequest request) {
+        PreviewRequest preview;
+        try {
+            preview = previewService.resolve(templateName, version, format, size, sample);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to compile template {} for preview: {}", templateName, e.getMessage());
+            return ResponseEntity.unprocessableEntity().body(new ApiResponse("error", "Template does not compile: " + e.getMessage()));
+        }
+        if (request.checkNotModified(preview.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(preview.getEtag()).build();
+        }
+        try {
+            Preview rendered = previewService.render(preview);
+            return ResponseEntity.ok()
+                    .eTag(rendered.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    // Opened directly, preview HTML runs in a sandbox: no scripts, no access to this origin
+                    .header("Content-Security-Policy", "sandbox")
+                    .header("X-Content-Type-Options", "nosniff")
+                    .contentType(MediaType.parseMediaType(rendered.getContentType()))
+                    .body(rendered.getBody());
+        } catch (Exception e) {
+            logger.error("Failed to render preview of template {}", templateName, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Failed to render preview: " + e.getMessage()));
+        }
+    }
+
+    public static class TemplateUploadResponse extends ApiResponse {
+        private final Long templateId;
+        private final int version;
+        private final String versionsUrl;
+
+        public TemplateUploadResponse(String status, String message, Long templateId, int version) {
+            super(status, message);
+            this.templateId = templateId;
+            this.version = version;
+            this.versionsUrl = "/api/templates/" + templateId + "/versions";
+        }
+
+        public Long getTemplateId() { return templateId; }
+        public int getVersion() { return version; }
+        public String getVersionsUrl() { return versionsUrl; }
+    }
+
+    /**
+     * Uploads template HTML as a new template ({@code name}) or as the next version of
+     * {@code templateId}. The version is compiled in the background and goes live once it
+     * compiles; its progress is listed under {@code /{templateId}/versions}.
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<ApiResponse> uploadTemplate(@RequestParam("file") MultipartFile file,
+                                                      @RequestParam(required = false) Long templateId,
+                                                      @RequestParam(required = false) String name,
+                                                      @RequestParam(required = false) String description) {
+        try {
+            String html = new String(file.getBytes(), StandardCharsets.UTF_8);
+            UploadResult result = registry.upload(templateId, name, description, html);
+            Long id = result.getTemplate().getId();
+            int version = result.getVersion().getVersion();
+            if (result.isUnchanged()) {
+                return ResponseEntity.ok(new TemplateUploadResponse("unchanged",
+                        "Same content as version " + version, id, version));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new TemplateUploadResponse("accepted",
+                    "Version " + version + " is compiling and goes live when it succeeds", id, version));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Other uploads to the same template kept winning the next version number
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse("error", "Another upload of this template is in progress; try again"));
+        } catch (Exception e) {
+            logger.error("Failed to upload template", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Failed to upload template: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{templateId}/versions")
+    public ResponseEntity<List<TemplateVersionResponse>> getTemplateVersions(@PathVariable Long templateId) {
+        return ResponseEntity.ok(registry.versions(templateId).stream().map(TemplateVersionResponse::from).toList());
+    }
+
+    /** Puts an earlier (or failed and since fixed) version live again, after compiling it. */
+    @PostMapping("/{templateId}/versions/{version}/activate")
+    public ResponseEntity<ApiResponse> activateTemplateVersion(@PathVariable Long templateId, @PathVariable int version) {
+        try {
+            registry.activate(templateId, version);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new TemplateUploadResponse("accepted",
+                    "Version " + version + " is compiling and goes live when it succeeds", templateId, version));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiResponse("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/all")
@@ -105,112 +300,119 @@ public class CertificateTemplateController {
             List<CertificateTemplate> templates = service.getAllTemplates();
             return ResponseEntity.ok(templates);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to list templates", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
     @PostMapping("/generate-preview/{templateId}")
-    public ResponseEntity<ApiResponse> generateTemplatePreview(@PathVariable Long templateId) {
+    public ResponseEntity<ApiResponse> generateTemplatePreview(@PathVariable Long templateId,
+                                                               @RequestParam(defaultValue = "false") boolean force) {
         try {
-            String previewUrl = service.generateAndUploadPreviewImage(templateId);
+            String previewUrl = service.generateAndUploadPreviewImage(templateId, force);
             return ResponseEntity.ok(new ApiResponse("success", "Preview generated and uploaded: " + previewUrl));
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to generate preview for template {}", templateId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ApiResponse("error", "Failed to generate preview: " + e.getMessage()));
         }
     }
 
+    // Staff may look up anyone's certificates; a student only their own, and of a subject only theirs
     @GetMapping("/certificates/student/{studentName}")
-    public ResponseEntity<List<String>> getCertificatesByStudent(@PathVariable String studentName) throws IOException, InterruptedException {
-        String path = "certificates/" + studentName + "/";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(supabaseUrl + "/storage/v1/object/list/" + bucket + "?prefix=" + path))
-                .header("apikey", supabaseKey)
-                .header("Authorization", "Bearer " + supabaseKey)
-                .GET()
-                .build();
-
-        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            return ResponseEntity.status(response.statusCode()).body(List.of("Error: " + response.body()));
+    public ResponseEntity<List<String>> getCertificatesByStudent(@PathVariable String studentName,
+                                                                 @RequestParam(defaultValue = "0") long afterId,
+                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                 @AuthenticationPrincipal TokenClaims caller) {
+        String studentKey = CertificateTemplateService.safePathSegment(studentName);
+        if (isStudent(caller) && !studentKey.equals(catalogService.studentKeyOf(caller.getId()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Map<String, Object>> files = objectMapper.readValue(response.body(), List.class);
-
-        List<String> urls = files.stream()
-                .map(file -> {
-                    String fileName = (String) file.get("name");
-                    return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + fileName;
-                })
-                .toList();
-
-        return ResponseEntity.ok(urls);
+        return certificatePage(catalogService.findByStudent(studentKey, afterId, limit), limit);
     }
 
     @GetMapping("/certificates/subject/{subjectName}")
-    public ResponseEntity<List<String>> getCertificatesBySubject(@PathVariable String subjectName) throws IOException, InterruptedException {
-        String path = "certificates/";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(supabaseUrl + "/storage/v1/object/list/" + bucket + "?prefix=" + path))
-                .header("apikey", supabaseKey)
-                .header("Authorization", "Bearer " + supabaseKey)
-                .GET()
-                .build();
-
-        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            return ResponseEntity.status(response.statusCode()).body(List.of("Error: " + response.body()));
+    public ResponseEntity<List<String>> getCertificatesBySubject(@PathVariable String subjectName,
+                                                                 @RequestParam(defaultValue = "0") long afterId,
+                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                 @AuthenticationPrincipal TokenClaims caller) {
+        String subjectKey = CertificateTemplateService.safePathSegment(subjectName);
+        if (!isStudent(caller)) {
+            return certificatePage(catalogService.findBySubject(subjectKey, afterId, limit), limit);
+        }
+        String ownKey = catalogService.studentKeyOf(caller.getId());
+        if (ownKey == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        return certificatePage(catalogService.findBySubjectForStudent(subjectKey, ownKey, afterId, limit), limit);
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Map<String, Object>> files = objectMapper.readValue(response.body(), List.class);
+    @GetMapping("/certificates/student/{studentName}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadStudentBundle(@PathVariable String studentName,
+                                                                       @AuthenticationPrincipal TokenClaims caller) {
+        String studentKey = CertificateTemplateService.safePathSegment(studentName);
+        if (isStudent(caller) && !studentKey.equals(catalogService.studentKeyOf(caller.getId()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return bundleResponse(studentKey, bundleService.byStudent(studentKey));
+    }
 
-        List<String> urls = files.stream()
-                .filter(file -> ((String) file.get("name")).endsWith("/" + subjectName + ".pdf"))
-                .map(file -> {
-                    String fullPath = (String) file.get("name");
-                    return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + fullPath;
-                })
-                .toList();
+    @GetMapping("/certificates/subject/{subjectName}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadSubjectBundle(@PathVariable String subjectName,
+                                                                       @AuthenticationPrincipal TokenClaims caller) {
+        String subjectKey = CertificateTemplateService.safePathSegment(subjectName);
+        if (!isStudent(caller)) {
+            return bundleResponse(subjectKey, bundleService.bySubject(subjectKey));
+        }
+        String ownKey = catalogService.studentKeyOf(caller.getId());
+        if (ownKey == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return bundleResponse(subjectKey + "-" + ownKey, bundleService.bySubjectForStudent(subjectKey, ownKey));
+    }
 
-        return ResponseEntity.ok(urls);
+    private static boolean isStudent(TokenClaims caller) {
+        return caller == null || caller.getRole() == User.Role.STUDENT;
     }
 
     @GetMapping("/certificates/all")
-    public ResponseEntity<List<String>> getAllCertificates() throws IOException, InterruptedException {
-        String path = "certificates/";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(supabaseUrl + "/storage/v1/object/list/" + bucket + "?prefix=" + path))
-                .header("apikey", supabaseKey)
-                .header("Authorization", "Bearer " + supabaseKey)
-                .GET()
-                .build();
-
-        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    public ResponseEntity<List<String>> getAllCertificates(@RequestParam(defaultValue = "0") long afterId,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        return certificatePage(catalogService.findAll(afterId, limit), limit);
+    }
 
-        if (response.statusCode() != 200) {
-            return ResponseEntity.status(response.statusCode()).body(List.of("Error: " + response.body()));
+    @PostMapping("/certificates/catalog/rebuild")
+    public ResponseEntity<ApiResponse> rebuildCertificateCatalog() {
+        try {
+            int recorded = catalogService.rebuildFromStorage();
+            return ResponseEntity.ok(new ApiResponse("success", "Catalogued " + recorded + " certificates from storage"));
+        } catch (Exception e) {
+            logger.error("Failed to rebuild certificate catalog", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("error", "Failed to rebuild catalog: " + e.getMessage()));
         }
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<Map<String, Object>> files = objectMapper.readValue(response.body(), List.class);
-
-        List<String> urls = files.stream()
-                .filter(file -> ((String) file.get("name")).endsWith(".pdf"))
-                .map(file -> {
-                    String fullPath = (String) file.get("name");
-                    return supabaseUrl + "/storage/v1/object/public/" + bucket + "/" + fullPath;
-                })
-                .toList();
+    // Entries are written as they are fetched, so the size is unknown and the body goes out chunked
+    private ResponseEntity<StreamingResponseBody> bundleResponse(String key, EntrySource source) {
+        StreamingResponseBody body = out -> {
+            BundleResult result = bundleService.writeZip(source, out);
+            logger.info("Streamed certificate bundle {}: {} certificates, {} missing{}", key, result.getEntries(),
+                    result.getMissing().size(), result.isTruncated() ? ", truncated" : "");
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"certificates-" + key + ".zip\"")
+                .body(body);
+    }
 
-        return ResponseEntity.ok(urls);
+    // The body stays a plain URL list; the cursor for the next page goes in X-Next-After-Id
+    private ResponseEntity<List<String>> certificatePage(List<CertificateCatalogEntry> entries, int limit) {
+        List<String> urls = entries.stream().map(catalogService::publicUrl).toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!entries.isEmpty() && entries.size() >= Math.min(limit, CertificateCatalogService.MAX_PAGE_SIZE)) {
+            response.header("X-Next-After-Id", String.valueOf(entries.get(entries.size() - 1).getId()));
+        }
+        return response.body(urls);
     }
 }
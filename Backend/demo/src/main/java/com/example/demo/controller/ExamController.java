@@ -1,16 +1,16 @@
 package com.example.demo.controller;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.List;
+import java.time.LocalDate;
 import java.util.Map;
 import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -22,9 +22,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.Service.ExamService;
+import com.example.demo.Service.ExamService.CachedExamList;
+import com.example.demo.Service.ExamImageService;
+import com.example.demo.Service.ExamImageService.ImageType;
+import com.example.demo.Service.ExamImageService.StoredImage;
+import com.example.demo.Service.StorageException;
 import com.example.demo.model.Exam;
 
 @RestController
@@ -33,22 +39,46 @@ import com.example.demo.model.Exam;
 @RequestMapping("/api")
 public class ExamController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExamController.class);
+
     @Autowired
     private ExamService examService;
 
-    @Value("${supabase.url}")
-    private String supabaseUrl;
-
-    @Value("${supabase.api-key}")
-    private String supabaseApiKey;
-
-    @Value("${supabase.bucket-name}")
-    private String bucketName;
+    @Autowired
+    private ExamImageService examImageService;
 
     // 🔵 Get all exams
     @GetMapping("/exams")
-    public List<Exam> getAllExams() {
-        return examService.getAllExams();
+    public ResponseEntity<byte[]> getAllExams(WebRequest request) {
+        return cachedJson(examService.getAllExamsCached(), request);
+    }
+
+    // 🔵 Paged exam summaries, filterable by subject and date range
+    @GetMapping("/exams/page")
+    public ResponseEntity<?> getExamPage(@RequestParam(required = false) String subject,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                         @RequestParam(defaultValue = "asc") String sort,
+                                         @RequestParam(defaultValue = "20") int limit,
+                                         @RequestParam(required = false) String cursor,
+                                         WebRequest request) {
+        try {
+            boolean descending = "desc".equalsIgnoreCase(sort);
+            return cachedJson(examService.getExamPage(subject, from, to, descending, limit, cursor), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<byte[]> cachedJson(CachedExamList exams, WebRequest request) {
+        if (request.checkNotModified(exams.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(exams.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(exams.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exams.getJson());
     }
 
     // 🔵 Add exam
@@ -78,45 +108,28 @@ public class ExamController {
 
     // 🔵 Upload image to Supabase Storage bucket
     @PostMapping("/upload/image")
-    public ResponseEntity<?> uploadImage(@RequestParam("image") MultipartFile file) {
+    public ResponseEntity<?> uploadImage(@RequestParam("image") MultipartFile file,
+                                         @RequestParam(defaultValue = "false") boolean variants) {
         try {
-            String fileType = file.getContentType();
-
-            if (!List.of("image/jpeg", "image/jpg", "image/png").contains(fileType)) {
+            // Trust the file's magic bytes, not the Content-Type the client sent
+            ImageType imageType = examImageService.sniff(file);
+            if (imageType == null) {
                 return ResponseEntity.badRequest().body("Invalid file type.");
             }
 
-            // Generate unique file name
-            String fileName = UUID.randomUUID().toString() + "-" + file.getOriginalFilename();
-
-            // Supabase Storage upload URL
-            String uploadUrl = supabaseUrl + "/storage/v1/object/" + bucketName + "/" + fileName;
-
-            // Create HTTP client
-            HttpClient client = HttpClient.newHttpClient();
-
-            // Build HTTP PUT request with file bytes and necessary headers
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(uploadUrl))
-                    .header("apikey", supabaseApiKey)
-                    .header("Authorization", "Bearer " + supabaseApiKey)
-                    .header("Content-Type", fileType)
-                    .PUT(HttpRequest.BodyPublishers.ofByteArray(file.getBytes()))
-                    .build();
-
-            // Send request and get response
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200 || response.statusCode() == 201) {
-                // Construct public URL assuming bucket is public
-                String imageUrl = supabaseUrl + "/storage/v1/object/public/" + bucketName + "/" + fileName;
-                return ResponseEntity.ok(Map.of("imageUrl", imageUrl));
-            } else {
-                return ResponseEntity.status(response.statusCode())
-                        .body(Map.of("error", "Upload failed: " + response.body()));
+            // Streamed from the multipart temp file through the shared storage client; the bucket is public
+            StoredImage stored = examImageService.store(file, imageType, variants);
+            if (stored.getVariants().isEmpty()) {
+                return ResponseEntity.ok(Map.of("imageUrl", stored.getImageUrl()));
             }
+            return ResponseEntity.ok(Map.of("imageUrl", stored.getImageUrl(), "variants", stored.getVariants()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (StorageException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(Map.of("error", "Upload failed: " + e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Image upload failed", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to upload image to Supabase"));
         }
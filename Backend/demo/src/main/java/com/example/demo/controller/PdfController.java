@@ -1,39 +1,110 @@
 package com.example.demo.controller;
 
 import com.example.demo.Service.ProcessCsvPdfService;
+import com.example.demo.Service.ProcessCsvPdfService.ImportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
-
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/pdf")
-
 public class PdfController {
-   
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private ProcessCsvPdfService csvPdfService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Logger logger = LoggerFactory.getLogger(PdfController.class);
 
-//    @PostMapping("/upload")
-//    public ResponseEntity<?> handleCsvUpload(@RequestParam("file") MultipartFile file) {
-//        try {
-//            if (file.isEmpty()) {
-//                return ResponseEntity.badRequest().body("Uploaded file is empty.");
-//            }
-//
-//            List<String> uploadedUrls = csvPdfService.processCsvAndGeneratePdfs(file);
-//            return ResponseEntity.ok(uploadedUrls);
-//        } catch (Exception e) {
-//            logger.error("Failed to process uploaded CSV", e);
-//            return ResponseEntity.internalServerError().body("Error processing CSV and generating PDFs.");
-//        }
-//    }
+    /**
+     * Generates certificates for every row of the uploaded CSV and streams one JSON line per
+     * row as results arrive, followed by a summary line. If the client disconnects, the import
+     * stops after the chunk in progress and nothing more is written.
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<?> handleCsvUpload(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(required = false) String subject,
+                                             @RequestParam(required = false) String templateName) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Uploaded file is empty.");
+        }
+
+        // Opened here so the multipart temp file is held open for the streaming thread
+        BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+
+        StreamingResponseBody body = out -> {
+            // A lock rather than synchronized: blocking socket writes inside a monitor pin virtual threads
+            ReentrantLock writeLock = new ReentrantLock();
+            AtomicBoolean disconnected = new AtomicBoolean();
+            Consumer<Object> send = line -> {
+                if (disconnected.get()) {
+                    return;
+                }
+                try {
+                    writeLine(out, writeLock, line);
+                } catch (UncheckedIOException e) {
+                    if (disconnected.compareAndSet(false, true)) {
+                        logger.info("Client disconnected from CSV import; stopping after the current chunk");
+                    }
+                }
+            };
+            try (reader) {
+                ImportSummary summary = csvPdfService.processCsv(reader, subject, templateName,
+                        send::accept, disconnected::get);
+
+                Map<String, Object> totals = new LinkedHashMap<>();
+                totals.put("summary", true);
+                totals.put("rows", summary.getRows());
+                totals.put("succeeded", summary.getSucceeded());
+                totals.put("failed", summary.getFailed());
+                send.accept(totals);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Failed to process uploaded CSV", e);
+                send.accept(Map.of("summary", true, "error", "Error processing CSV: " + e.getMessage()));
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, ReentrantLock writeLock, Object line) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(line);
+            writeLock.lock();
+            try {
+                out.write(json);
+                out.write('\n');
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -1,47 +1,152 @@
 package com.example.demo.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.Service.PasswordHashingService.HashingOverloadedException;
+import com.example.demo.Service.RosterImportService;
+import com.example.demo.Service.RosterImportService.ImportSummary;
+import com.example.demo.Service.TokenService;
 import com.example.demo.Service.UserService;
+import com.example.demo.dto.LoginResponse;
+import com.example.demo.dto.UserResponse;
 import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @CrossOrigin(origins = "http://localhost:3000")
 @RestController
 @RequestMapping("/api")
 public class UserController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final UserService userService;
 
-    public UserController(UserService userService) {
+    private final RosterImportService rosterImportService;
+
+    private final TokenService tokenService;
+
+    private final ObjectMapper objectMapper;
+
+    public UserController(UserService userService, RosterImportService rosterImportService,
+                          TokenService tokenService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.rosterImportService = rosterImportService;
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
         try {
             User savedUser = userService.registerUser(user);
-            return ResponseEntity.ok(savedUser);
+            return ResponseEntity.ok(UserResponse.from(savedUser));
+        } catch (HashingOverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    @PostMapping("/signup/bulk")
+    public ResponseEntity<?> registerUsers(@RequestBody List<User> users) {
+        try {
+            if (users == null || users.isEmpty()) {
+                return ResponseEntity.badRequest().body("Request body is empty or invalid");
+            }
+            return ResponseEntity.ok(userService.registerUsers(users));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a user for every row of a class roster CSV and streams one JSON line per row,
+     * followed by a summary line.
+     */
+    @PostMapping("/users/roster")
+    public ResponseEntity<?> importRoster(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Uploaded file is empty.");
+        }
+
+        // Opened here so the multipart temp file is held open for the streaming thread
+        BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+
+        StreamingResponseBody body = out -> {
+            try (reader) {
+                ImportSummary summary = rosterImportService.importRoster(reader, result -> writeLine(out, result));
+
+                Map<String, Object> totals = new LinkedHashMap<>();
+                totals.put("summary", true);
+                totals.put("rows", summary.getRows());
+                totals.put("created", summary.getCreated());
+                totals.put("conflicts", summary.getConflicts());
+                totals.put("failed", summary.getFailed());
+                writeLine(out, totals);
+            } catch (Exception e) {
+                logger.error("Failed to import roster", e);
+                writeLine(out, Map.of("summary", true, "error", "Error importing roster: " + e.getMessage()));
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@RequestBody LoginRequest loginRequest) {
         try {
             User user = userService.loginUser(loginRequest.getEmail(), loginRequest.getPassword());
-            return ResponseEntity.ok(user);
+            String token = tokenService.issue(user);
+            return ResponseEntity.ok(LoginResponse.from(user, token, Instant.now().plus(tokenService.getTtl())));
+        } catch (HashingOverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
         }
     }
 
+    private ResponseEntity<?> overloaded(HashingOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    private void writeLine(OutputStream out, Object line) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // Inner class for login request data transfer object (DTO)
     private static class LoginRequest {
         private String email;
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkRegistrationResult {
+
+    private int created;
+    private int rejected;
+    private List<UserRowResult> rows;
+}
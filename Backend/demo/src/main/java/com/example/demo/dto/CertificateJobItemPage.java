@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CertificateJobItemPage {
+
+    private List<CertificateJobItemSummary> items;
+
+    // Pass back as ?after= for the next page; null on the last page
+    private Integer nextAfter;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+import com.example.demo.model.CertificateJobItem;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Outcome of one item of a certificate job, without the request fields it was queued with. */
+@Data
+@AllArgsConstructor
+public class CertificateJobItemSummary {
+
+    private int itemIndex;
+    private Long userId;
+    private String subject;
+    private CertificateJobItem.Status status;
+    private String error;
+    private Instant finishedAt;
+}
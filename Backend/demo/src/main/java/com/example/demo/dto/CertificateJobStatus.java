@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class CertificateJobStatus {
+
+    private UUID jobId;
+    private String status;
+    private int totalItems;
+    private int completedItems;
+    private int failedItems;
+    private int pendingItems;
+
+    // Rate of items finished since the job (re)started, and the remaining time at that rate
+    private double itemsPerSecond;
+    private Long etaSeconds;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String lastError;
+}
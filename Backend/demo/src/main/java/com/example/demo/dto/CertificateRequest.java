@@ -11,6 +11,9 @@ public class CertificateRequest {
         private Long userId;
         private String templateName;
 
+        // Stored template version to render; null means the template's live version
+        private Integer templateVersion;
+
         // getters and setters
    
 
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CsvRowResult {
+
+    private long row;
+    private Long userId;
+    private String subject;
+    private String status; // ok | error
+    private String error;
+
+    public static CsvRowResult ok(long row, CertificateRequest request) {
+        CsvRowResult result = new CsvRowResult();
+        result.setRow(row);
+        result.setUserId(request.getUserId());
+        result.setSubject(request.getSubject());
+        result.setStatus("ok");
+        return result;
+    }
+
+    public static CsvRowResult error(long row, Long userId, String error) {
+        CsvRowResult result = new CsvRowResult();
+        result.setRow(row);
+        result.setUserId(userId);
+        result.setStatus("error");
+        result.setError(error);
+        return result;
+    }
+}
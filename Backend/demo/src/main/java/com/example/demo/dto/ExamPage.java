@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ExamPage {
+
+    private List<ExamSummary> items;
+
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+}
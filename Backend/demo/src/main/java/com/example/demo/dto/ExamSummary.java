@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** List view of an exam: everything but the description and image URL. */
+@Data
+@AllArgsConstructor
+public class ExamSummary {
+
+    private UUID id;
+    private String title;
+    private String subject;
+    private LocalDate date;
+
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime time;
+}
@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+import com.example.demo.model.User;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/** The user's fields plus the bearer token to send on later requests. */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LoginResponse extends UserResponse {
+
+    private String token;
+    private String tokenType = "Bearer";
+    private Instant expiresAt;
+
+    public static LoginResponse from(User user, String token, Instant expiresAt) {
+        LoginResponse response = new LoginResponse();
+        copy(user, response);
+        response.setToken(token);
+        response.setExpiresAt(expiresAt);
+        return response;
+    }
+}
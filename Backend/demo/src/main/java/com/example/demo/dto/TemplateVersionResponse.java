@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+
+import com.example.demo.model.CertificateTemplateVersion;
+
+import lombok.Data;
+
+/** A template version as listed by the API: everything but the HTML itself. */
+@Data
+public class TemplateVersionResponse {
+
+    private Long templateId;
+    private int version;
+    private String contentHash;
+    private String status;
+    private String error;
+    private Instant createdAt;
+    private Instant activatedAt;
+
+    public static TemplateVersionResponse from(CertificateTemplateVersion version) {
+        TemplateVersionResponse response = new TemplateVersionResponse();
+        response.setTemplateId(version.getTemplateId());
+        response.setVersion(version.getVersion());
+        response.setContentHash(version.getContentHash());
+        response.setStatus(version.getStatus() == null ? null : version.getStatus().name());
+        response.setError(version.getError());
+        response.setCreatedAt(version.getCreatedAt());
+        response.setActivatedAt(version.getActivatedAt());
+        return response;
+    }
+}
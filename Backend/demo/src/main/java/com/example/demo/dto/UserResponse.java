@@ -0,0 +1,36 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.User;
+
+import lombok.Data;
+
+/** What the API returns for a user: the entity minus its password hash. */
+@Data
+public class UserResponse {
+
+    private Long id;
+    private String userId;
+    private String name;
+    private String email;
+    private String phone;
+    private String school;
+    private String userClass;
+    private User.Role role;
+
+    public static UserResponse from(User user) {
+        UserResponse response = new UserResponse();
+        copy(user, response);
+        return response;
+    }
+
+    protected static void copy(User user, UserResponse response) {
+        response.setId(user.getId());
+        response.setUserId(user.getUserId());
+        response.setName(user.getName());
+        response.setEmail(user.getEmail());
+        response.setPhone(user.getPhone());
+        response.setSchool(user.getSchool());
+        response.setUserClass(user.getUserClass());
+        response.setRole(user.getRole() != null ? user.getRole() : User.Role.STUDENT);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserRowResult {
+
+    private long row;
+    private String email;
+    private String userId;
+    private String status; // ok | conflict | error
+    private String error;
+
+    public static UserRowResult ok(long row, String email, String userId) {
+        UserRowResult result = new UserRowResult();
+        result.setRow(row);
+        result.setEmail(email);
+        result.setUserId(userId);
+        result.setStatus("ok");
+        return result;
+    }
+
+    public static UserRowResult conflict(long row, String email, String error) {
+        UserRowResult result = new UserRowResult();
+        result.setRow(row);
+        result.setEmail(email);
+        result.setStatus("conflict");
+        result.setError(error);
+        return result;
+    }
+
+    public static UserRowResult error(long row, String email, String error) {
+        UserRowResult result = new UserRowResult();
+        result.setRow(row);
+        result.setEmail(email);
+        result.setStatus("error");
+        result.setError(error);
+        return result;
+    }
+}
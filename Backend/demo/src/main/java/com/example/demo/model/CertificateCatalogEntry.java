@@ -0,0 +1,51 @@
+package com.example.demo.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * One row per certificate object in storage, written when its upload succeeds. Lookups by
+ * student or subject hit these indexes instead of listing the bucket.
+ */
+@Entity
+@Data
+@Table(name = "certificate_catalog", indexes = {
+        @Index(name = "idx_catalog_student", columnList = "studentKey, id"),
+        @Index(name = "idx_catalog_subject", columnList = "subjectKey, id")
+})
+public class CertificateCatalogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+    private String studentName;
+
+    // Path-safe forms of student name and subject, as they appear in objectPath
+    private String studentKey;
+    private String subjectKey;
+
+    private String subject;
+    private Long templateId;
+
+    // Kept so a certificate missing from storage can be rendered again for a bundle, exactly
+    // as issued: same percentage, printed date and template version
+    private String percentage;
+    private LocalDate issuedOn;
+    private Integer templateVersion;
+
+    @Column(unique = true, nullable = false)
+    private String objectPath;
+
+    private Instant uploadedAt;
+}
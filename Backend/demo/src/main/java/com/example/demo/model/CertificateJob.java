@@ -0,0 +1,43 @@
+package com.example.demo.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "certificate_jobs")
+public class CertificateJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private int totalItems;
+    private int completedItems;
+    private int failedItems;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    private String lastError;
+
+    // Held by the instance running the job and renewed while it runs; an expired lease means
+    // that instance is gone and another may take the job over. Only the owner may renew it.
+    private Instant leaseUntil;
+    private String leaseOwner;
+}
@@ -0,0 +1,53 @@
+package com.example.demo.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "certificate_job_items",
+        indexes = {
+                @Index(name = "idx_job_items_job_status", columnList = "jobId, status, itemIndex"),
+                @Index(name = "idx_job_items_job_index", columnList = "jobId, itemIndex")
+        })
+public class CertificateJobItem {
+
+    public enum Status { PENDING, SUCCEEDED, FAILED }
+
+    // Sequence ids (not IDENTITY) so a job's items can be inserted as one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_job_item_seq")
+    @SequenceGenerator(name = "certificate_job_item_seq", allocationSize = 100)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID jobId;
+
+    private int itemIndex;
+
+    private Long userId;
+    private String subject;
+    private String percentage;
+    private String templateName;
+
+    // Pinned when the job is created, so a template swapped mid-job does not change its output
+    private Integer templateVersion;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private String error;
+    private Instant finishedAt;
+}
@@ -23,4 +23,14 @@ public class CertificateTemplate {
     private String filePath;
      private String previewImageUrl; // Added field for preview image URL
 
+    private String previewThumbnailUrl;
+
+    private String previewFullUrl;
+
+    // Template source hash the previews were rendered from; unchanged hash means no re-render
+    private String previewHash;
+
+    // Live version in certificate_template_versions; null renders templates/{name}.html from the classpath
+    private Integer currentVersion;
+
 }
@@ -0,0 +1,51 @@
+package com.example.demo.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+
+/**
+ * One uploaded revision of a template's HTML. Rows are never changed once written except for
+ * their compile status; {@link CertificateTemplate#getCurrentVersion()} says which one is live.
+ */
+@Entity
+@Data
+@Table(name = "certificate_template_versions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_template_version", columnNames = {"templateId", "version"}))
+public class CertificateTemplateVersion {
+
+    public enum Status { COMPILING, READY, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long templateId;
+
+    private int version;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String content;
+
+    // SHA-256 of content; re-uploading identical HTML returns the existing version
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private String error;
+
+    private Instant createdAt;
+    private Instant activatedAt;
+}
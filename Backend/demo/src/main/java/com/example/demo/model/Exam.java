@@ -1,24 +1,42 @@
 package com.example.demo.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import lombok.Data;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_exam_date", columnList = "exam_date, id"),
+        @Index(name = "idx_exam_subject_date", columnList = "subject, exam_date, id")
+})
 public class Exam {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     private String title;
-    private String date;
-    private String time;
+
+    // Typed columns; the legacy free-text date/time columns are copied over at startup
+    @Column(name = "exam_date")
+    private LocalDate date;
+
+    @Column(name = "exam_time")
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime time;
+
     private String subject;
     private String description;
     private String image;
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.example.demo.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -11,6 +13,8 @@ import jakarta.persistence.Table;
 @Table(name = "users")
 public class User {
 
+    public enum Role { STUDENT, TEACHER, ADMIN }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // internal DB id
@@ -31,6 +35,11 @@ public class User {
 
     private String password;
 
+    // Granted by an administrator in the database; signup never sets it. Null means STUDENT.
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Role role;
+
     // Constructors
     public User() {}
 
@@ -40,6 +49,10 @@ public class User {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -95,4 +108,12 @@ public class User {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
 }
@@ -0,0 +1,123 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.Service.CertificateBatchEngine.BatchResult;
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.Service.CertificateBatchEngine.RenderedCertificate;
+import com.example.demo.dto.CertificateRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CertificateBatchEngineTest {
+
+    private static final int RENDER_THREADS = 2;
+    private static final int MAX_PENDING_UPLOADS = 3;
+
+    private final CertificateBatchEngine engine =
+            new CertificateBatchEngine(new SimpleMeterRegistry(), RENDER_THREADS, 1, MAX_PENDING_UPLOADS, false);
+
+    private final Set<Integer> succeeded = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> failed = ConcurrentHashMap.newKeySet();
+    private final ItemListener listener = new ItemListener() {
+        @Override
+        public void onSuccess(int index, CertificateRequest request) {
+            succeeded.add(index);
+        }
+
+        @Override
+        public void onFailure(int index, CertificateRequest request, Throwable error) {
+            failed.add(index);
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void failingItemsDoNotStopTheBatch() throws InterruptedException {
+        List<CertificateRequest> requests = requests(10);
+
+        BatchResult result = engine.run(requests,
+                request -> {
+                    if (request.getUserId() == 3) {
+                        throw new IOException("template missing");
+                    }
+                    return rendered(request);
+                },
+                rendered -> {
+                    if (rendered.getRequest().getUserId() == 7) {
+                        throw new IOException("storage unavailable");
+                    }
+                },
+                listener);
+
+        assertEquals(10, result.getTotal());
+        assertEquals(8, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(Set.of(3, 7), failed);
+        assertEquals(8, succeeded.size());
+        assertTrue(result.getFailures().contains("user 3: template missing"), result.getFailures().toString());
+        assertTrue(result.getFailures().contains("user 7: storage unavailable"), result.getFailures().toString());
+    }
+
+    @Test
+    void inFlightItemsNeverExceedTheWindow() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ItemListener leaving = new ItemListener() {
+            // Called before the item's slot is released
+            @Override
+            public void onSuccess(int index, CertificateRequest request) {
+                inFlight.decrementAndGet();
+                succeeded.add(index);
+            }
+        };
+
+        // A single slow uploader makes the renderers run ahead until the window is full
+        BatchResult result = engine.run(requests(40),
+                request -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return rendered(request);
+                },
+                rendered -> Thread.sleep(5),
+                leaving);
+
+        assertEquals(40, result.getSucceeded());
+        assertEquals(40, succeeded.size());
+        assertTrue(maxInFlight.get() <= RENDER_THREADS + MAX_PENDING_UPLOADS,
+                "at most " + (RENDER_THREADS + MAX_PENDING_UPLOADS) + " in flight, saw " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "renders should run ahead of the upload");
+    }
+
+    private static List<CertificateRequest> requests(int count) {
+        List<CertificateRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CertificateRequest request = new CertificateRequest();
+            request.setUserId((long) i);
+            request.setSubject("Mathematics");
+            request.setPercentage("80");
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static RenderedCertificate rendered(CertificateRequest request) {
+        return new RenderedCertificate(request, "Student " + request.getUserId(), LocalDate.of(2025, 6, 1),
+                new byte[] {1});
+    }
+}
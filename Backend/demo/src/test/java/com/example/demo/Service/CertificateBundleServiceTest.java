@@ -0,0 +1,96 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.CertificateCatalogEntry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CertificateBundleServiceTest {
+
+    private final ObjectStorage storage = mock(ObjectStorage.class);
+    private final CertificateTemplateService templateService = mock(CertificateTemplateService.class);
+    private final CertificateBundleService bundleService = new CertificateBundleService(storage,
+            mock(PdfContentCache.class), mock(CertificateCatalogService.class), templateService,
+            new SimpleMeterRegistry(), 2, 100, false);
+
+    @AfterEach
+    void shutdown() {
+        bundleService.shutdown();
+    }
+
+    @Test
+    void certificateGoneFromStorageIsRenderedAgainAndPutBack() throws Exception {
+        CertificateCatalogEntry entry = entry(1L, "certificates/Asha/maths.pdf");
+        byte[] pdf = "%PDF-rendered".getBytes(StandardCharsets.UTF_8);
+        when(storage.downloadAsync(entry.getObjectPath()))
+                .thenReturn(CompletableFuture.failedFuture(new StorageException(404, "not found")));
+        when(templateService.regeneratePdf(entry)).thenReturn(pdf);
+        when(storage.uploadAsync(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture("url"));
+
+        Map<String, byte[]> zip = writeZip(List.of(entry));
+
+        assertArrayEquals(pdf, zip.get("Asha/maths.pdf"));
+        verify(storage).uploadAsync(eq(entry.getObjectPath()), eq("application/pdf"), eq(pdf));
+    }
+
+    @Test
+    void certificateThatCannotBeReproducedIsListedAsMissing() throws Exception {
+        CertificateCatalogEntry entry = entry(1L, "certificates/Asha/maths.pdf");
+        when(storage.downloadAsync(entry.getObjectPath()))
+                .thenReturn(CompletableFuture.failedFuture(new StorageException(400, "not found")));
+        when(templateService.regeneratePdf(entry))
+                .thenThrow(new IOException("Not enough catalog data to re-render " + entry.getObjectPath()));
+
+        Map<String, byte[]> zip = writeZip(List.of(entry));
+
+        assertEquals(1, zip.size());
+        String missing = new String(zip.get("MISSING.txt"), StandardCharsets.UTF_8);
+        assertTrue(missing.startsWith("Asha/maths.pdf: Not enough catalog data"), missing);
+        verify(storage, never()).uploadAsync(anyString(), anyString(), any(byte[].class));
+    }
+
+    private Map<String, byte[]> writeZip(List<CertificateCatalogEntry> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bundleService.writeZip((afterId, limit) -> afterId == 0 ? entries : List.of(), out);
+
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry zipEntry = zip.getNextEntry(); zipEntry != null; zipEntry = zip.getNextEntry()) {
+                contents.put(zipEntry.getName(), zip.readAllBytes());
+            }
+        }
+        return contents;
+    }
+
+    private static CertificateCatalogEntry entry(Long id, String objectPath) {
+        CertificateCatalogEntry entry = new CertificateCatalogEntry();
+        entry.setId(id);
+        entry.setObjectPath(objectPath);
+        return entry;
+    }
+}
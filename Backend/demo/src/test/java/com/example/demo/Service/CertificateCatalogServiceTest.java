@@ -0,0 +1,89 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.Repository.CertificateCatalogRepository;
+import com.example.demo.dto.CertificateRequest;
+
+@ExtendWith(MockitoExtension.class)
+class CertificateCatalogServiceTest {
+
+    @Mock
+    private CertificateCatalogRepository catalogRepository;
+
+    @Mock
+    private ObjectStorage storage;
+
+    @InjectMocks
+    private CertificateCatalogService catalogService;
+
+    @Test
+    void rebuildDescendsIntoFoldersOfAShallowListing() throws Exception {
+        // Supabase-style listing of one level: student folders come back as bare names
+        when(storage.list("certificates/")).thenReturn(List.of("certificates/asha", "certificates/ravi"));
+        when(storage.list("certificates/asha/")).thenReturn(List.of("certificates/asha/maths.pdf",
+                "certificates/asha/physics.pdf"));
+        when(storage.list("certificates/ravi/")).thenReturn(List.of("certificates/ravi/maths.pdf"));
+
+        assertEquals(3, catalogService.rebuildFromStorage());
+
+        verify(catalogRepository).upsert(isNull(), eq("asha"), eq("asha"), eq("physics"), eq("physics"),
+                isNull(), isNull(), isNull(), isNull(), eq("certificates/asha/physics.pdf"), any());
+        verify(catalogRepository, times(3)).upsert(isNull(), any(), any(), any(), any(), isNull(), isNull(),
+                isNull(), isNull(), any(), any());
+    }
+
+    @Test
+    void rebuildTakesARecursiveListingAsIs() throws Exception {
+        when(storage.list("certificates/")).thenReturn(List.of("certificates/asha/maths.pdf",
+                "certificates/ravi/maths.pdf"));
+
+        assertEquals(2, catalogService.rebuildFromStorage());
+
+        verify(storage, times(1)).list(any());
+    }
+
+    @Test
+    void rebuildSkipsObjectsOutsideTheCertificateLayout() throws Exception {
+        when(storage.list("certificates/")).thenReturn(List.of("certificates/loose.pdf",
+                "certificates/asha/notes.txt", "certificates/asha/2024/maths.pdf"));
+
+        assertEquals(0, catalogService.rebuildFromStorage());
+
+        verify(catalogRepository, never()).upsert(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any(), any());
+    }
+
+    @Test
+    void recordKeepsWhatARerenderNeeds() {
+        CertificateRequest request = new CertificateRequest();
+        request.setUserId(7L);
+        request.setTemplateName("3");
+        request.setTemplateVersion(2);
+        request.setSubject("Organic Chemistry");
+        request.setPercentage("88");
+
+        catalogService.record(request, "Asha Verma", LocalDate.of(2025, 6, 1),
+                "certificates/Asha_Verma/Organic_Chemistry.pdf");
+
+        verify(catalogRepository).upsert(eq(7L), eq("Asha Verma"), eq("Asha_Verma"), eq("Organic_Chemistry"),
+                eq("Organic Chemistry"), eq(3L), eq("88"), eq(LocalDate.of(2025, 6, 1)), eq(2),
+                eq("certificates/Asha_Verma/Organic_Chemistry.pdf"), any());
+    }
+}
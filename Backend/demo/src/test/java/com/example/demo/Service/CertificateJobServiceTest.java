@@ -0,0 +1,190 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.Repository.CertificateJobItemRepository;
+import com.example.demo.Repository.CertificateJobRepository;
+import com.example.demo.Service.CertificateBatchEngine.BatchResult;
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.dto.CertificateJobStatus;
+import com.example.demo.model.CertificateJob;
+import com.example.demo.model.CertificateJobItem;
+
+class CertificateJobServiceTest {
+
+    private static final UUID JOB_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final CertificateJobRepository jobRepository = mock(CertificateJobRepository.class);
+    private final CertificateJobItemRepository itemRepository = mock(CertificateJobItemRepository.class);
+    private final CertificateTemplateService certificateService = mock(CertificateTemplateService.class);
+    private final CertificateJobService service = new CertificateJobService(1, 30);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(service, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(service, "certificateService", certificateService);
+        ReflectionTestUtils.setField(service, "transactionTemplate", mock(TransactionTemplate.class));
+
+        CertificateJob job = job(2, 0, 0);
+        when(jobRepository.findByStatusIn(any())).thenReturn(List.of(job));
+        when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+        when(jobRepository.start(eq(JOB_ID), anyString(), eq(CertificateJob.Status.RUNNING), any())).thenReturn(1);
+        when(jobRepository.finish(eq(JOB_ID), anyString(), any(), any(), any())).thenReturn(1);
+        when(itemRepository.findByJobIdAndStatusOrderByItemIndex(JOB_ID, CertificateJobItem.Status.PENDING))
+                .thenReturn(List.of(item(0), item(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void aJobIsClaimedOnceWhileItRuns() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jobRepository.claim(eq(JOB_ID), any(), anyString(), any(), any())).thenReturn(1, 0);
+        when(certificateService.processCertificates(anyList(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return new BatchResult(2);
+        });
+
+        service.resumeInterruptedJobs();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        service.resumeInterruptedJobs();
+        release.countDown();
+
+        verify(jobRepository, timeout(5000)).finish(eq(JOB_ID), anyString(), any(), any(), any());
+        verify(jobRepository, times(1)).claim(eq(JOB_ID), any(), anyString(), any(), any());
+        verify(certificateService, times(1)).processCertificates(anyList(), any());
+    }
+
+    @Test
+    void aJobLeasedByAnotherInstanceIsNotRun() throws Exception {
+        when(jobRepository.claim(eq(JOB_ID), any(), anyString(), any(), any())).thenReturn(0);
+
+        service.resumeInterruptedJobs();
+        service.shutdown();
+
+        verify(jobRepository, never()).start(any(), anyString(), any(), any());
+        verify(certificateService, never()).processCertificates(anyList(), any());
+    }
+
+    @Test
+    void itemOutcomesAreCountedAndTheJobFinishedWithErrors() throws Exception {
+        when(jobRepository.claim(eq(JOB_ID), any(), anyString(), any(), any())).thenReturn(1);
+        when(certificateService.processCertificates(anyList(), any())).thenAnswer(invocation -> {
+            ItemListener listener = invocation.getArgument(1);
+            listener.onSuccess(0, null);
+            listener.onFailure(1, null, new IllegalStateException("user not found"));
+            when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job(2, 1, 1)));
+            return new BatchResult(2);
+        });
+
+        service.resumeInterruptedJobs();
+
+        verify(jobRepository, timeout(5000)).finish(eq(JOB_ID), anyString(),
+                eq(CertificateJob.Status.COMPLETED_WITH_ERRORS), isNull(), any());
+        verify(itemRepository).markFinished(eq(JOB_ID), eq(10), eq(CertificateJobItem.Status.SUCCEEDED), isNull(), any());
+        verify(itemRepository).markFinished(eq(JOB_ID), eq(11), eq(CertificateJobItem.Status.FAILED),
+                eq("user not found"), any());
+        verify(jobRepository).incrementCompleted(JOB_ID);
+        verify(jobRepository).incrementFailed(JOB_ID, "user not found");
+    }
+
+    @Test
+    void aJobWhoseLeaseIsTakenOverStopsWithoutWritingItsOutcome() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(jobRepository.claim(eq(JOB_ID), any(), anyString(), any(), any())).thenReturn(1);
+        when(jobRepository.renewLease(eq(JOB_ID), anyString(), any())).thenReturn(0);
+        when(certificateService.processCertificates(anyList(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                // An item that completes after the lease was lost is not counted here
+                ((ItemListener) invocation.getArgument(1)).onSuccess(0, null);
+                interrupted.countDown();
+                throw e;
+            }
+            return new BatchResult(2);
+        });
+
+        service.resumeInterruptedJobs();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        service.renewLeases();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "the run is interrupted");
+        Thread.sleep(100);
+        verify(itemRepository, never()).markFinished(any(), anyInt(), any(), any(), any());
+        verify(jobRepository, never()).incrementCompleted(any());
+        verify(jobRepository, never()).finish(any(), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void statusReportsRateAndEta() {
+        CertificateJob job = job(100, 20, 5);
+        job.setStatus(CertificateJob.Status.RUNNING);
+        job.setStartedAt(Instant.now().minusSeconds(10));
+        when(jobRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+        when(itemRepository.countByJobIdAndFinishedAtGreaterThanEqual(JOB_ID, job.getStartedAt())).thenReturn(25L);
+
+        CertificateJobStatus status = service.getStatus(JOB_ID);
+
+        assertEquals(75, status.getPendingItems());
+        assertEquals(2.5, status.getItemsPerSecond(), 0.1);
+        assertEquals(30, status.getEtaSeconds(), 2);
+        assertNull(status.getFinishedAt());
+    }
+
+    private static CertificateJob job(int total, int completed, int failed) {
+        CertificateJob job = new CertificateJob();
+        job.setId(JOB_ID);
+        job.setStatus(CertificateJob.Status.QUEUED);
+        job.setTotalItems(total);
+        job.setCompletedItems(completed);
+        job.setFailedItems(failed);
+        return job;
+    }
+
+    private static CertificateJobItem item(int index) {
+        CertificateJobItem item = new CertificateJobItem();
+        item.setJobId(JOB_ID);
+        // Offset so the test sees item indexes, not batch positions, reach the repository
+        item.setItemIndex(10 + index);
+        item.setUserId((long) index);
+        item.setSubject("Mathematics");
+        item.setStatus(CertificateJobItem.Status.PENDING);
+        return item;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.demo.Service.CertificateRenderer.CompiledTemplate;
+import com.example.demo.model.CertificateTemplate;
+
+class CertificateRendererTest {
+
+    private static final float DPI = 36;
+
+    private final CertificateRenderer renderer = new CertificateRenderer(true);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"template1", "template2", "template3"})
+    void mergedPdfHasOnePagePerCertificateMatchingASingleRender(String templateName) throws IOException {
+        CertificateTemplate template = new CertificateTemplate();
+        template.setId(1L);
+        template.setName(templateName);
+
+        List<Map<String, Object>> students = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            students.add(student(i));
+        }
+
+        ByteArrayOutputStream merged = new ByteArrayOutputStream();
+        // Three per layout, so both a shared layout and a second one are covered
+        try (CertificateRenderer.MergedPdf pdf = renderer.openMergedPdf(3)) {
+            for (Map<String, Object> student : students) {
+                pdf.append(template, student);
+            }
+            pdf.writeTo(merged);
+            assertEquals(students.size(), pdf.getPages());
+        }
+
+        try (PDDocument document = PDDocument.load(merged.toByteArray())) {
+            assertEquals(students.size(), document.getNumberOfPages());
+            PDFRenderer pages = new PDFRenderer(document);
+            for (int i = 0; i < students.size(); i++) {
+                BufferedImage single;
+                // A single render also spills the templates' overflow onto a blank second page
+                try (PDDocument alone = PDDocument.load(renderer.renderPdf(template, students.get(i)))) {
+                    single = new PDFRenderer(alone).renderImageWithDPI(0, DPI, ImageType.RGB);
+                }
+                assertSamePixels(single, pages.renderImageWithDPI(i, DPI, ImageType.RGB), templateName + " page " + (i + 1));
+            }
+        }
+    }
+
+    @Test
+    void mergedHeadMovesBodyRulesOntoThePageClass() {
+        String head = "<html><head><style>body { width: 297mm; } html body, body > .box { color: red; }"
+                + " tbody { color: blue; } .body-text, #body { color: green; }"
+                + " @media print { body { margin: 0; } }</style></head>";
+
+        String merged = CertificateRenderer.mergedHead(head);
+
+        assertTrue(merged.contains(".merged-page { width: 297mm; }"), merged);
+        assertTrue(merged.contains("html .merged-page, .merged-page > .box {"), merged);
+        assertTrue(merged.contains("tbody { color: blue; }"), merged);
+        assertTrue(merged.contains(".body-text, #body {"), merged);
+        assertTrue(merged.contains("@media print { .merged-page { margin: 0; } }"), merged);
+        assertTrue(merged.indexOf("page-break-before") < merged.indexOf("</head>"), merged);
+    }
+
+    @Test
+    void pageWrapperKeepsTheBodyAttributes() {
+        assertEquals("<div class=\"merged-page\">", CertificateRenderer.pageWrapper(""));
+        assertEquals("<div class=\"merged-page\" style=\"color: red\">",
+                CertificateRenderer.pageWrapper(" style=\"color: red\""));
+        assertEquals("<div id=\"c\" class=\"merged-page landscape\">",
+                CertificateRenderer.pageWrapper(" id=\"c\" class=\"landscape\""));
+    }
+
+    @Test
+    void supersededStoredVersionsAreDroppedUnlessPinned() {
+        Map<Integer, Integer> loads = new HashMap<>();
+        renderer.setTemplateSource((templateId, version) -> {
+            loads.merge(version, 1, Integer::sum);
+            return "<html><body><p th:text=\"${name}\">x</p><p>v" + version + "</p></body></html>";
+        });
+        for (int version = 1; version <= 3; version++) {
+            renderer.compileStored(9L, version);
+        }
+        renderer.pin(9L, 2);
+
+        renderer.retireStoredVersions(9L, 3);
+        renderer.compileStored(9L, 1);
+        renderer.compileStored(9L, 2);
+        renderer.compileStored(9L, 3);
+        assertEquals(Map.of(1, 2, 2, 1, 3, 1), loads, "only the unpinned, superseded v1 is loaded again");
+
+        renderer.unpin(9L, 2);
+        renderer.compileStored(9L, 2);
+        assertEquals(2, loads.get(2), "v2 is dropped once its last batch lets go");
+    }
+
+    @Test
+    void droppedVersionStillRendersForACallerHoldingIt() {
+        renderer.setTemplateSource((templateId, version) ->
+                "<html><body><p th:text=\"${name}\">x</p><p>v" + version + "</p></body></html>");
+        CompiledTemplate old = renderer.compileStored(9L, 1);
+        renderer.compileStored(9L, 2);
+
+        renderer.retireStoredVersions(9L, 2);
+
+        assertTrue(renderer.renderHtml(old, student(1)).contains("<p>v1</p>"));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String page) {
+        assertEquals(expected.getWidth(), actual.getWidth(), page + " width");
+        assertEquals(expected.getHeight(), actual.getHeight(), page + " height");
+        int differing = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    differing++;
+                }
+            }
+        }
+        assertEquals(0, differing, page + " differs from a single render");
+    }
+
+    private static Map<String, Object> student(int i) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", "Student " + i);
+        variables.put("email", "student" + i + "@example.com");
+        variables.put("phone", "98765" + String.format("%05d", i));
+        variables.put("percentage", String.valueOf(60 + i));
+        variables.put("subject", "Mathematics");
+        variables.put("date", "01 June 2025");
+        return variables;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.Repository.CertificateTemplateRepository;
+import com.example.demo.Repository.UserRepository;
+import com.example.demo.Service.CertificateRenderer.CompiledTemplate;
+import com.example.demo.dto.CertificateRequest;
+import com.example.demo.model.CertificateCatalogEntry;
+import com.example.demo.model.CertificateTemplate;
+import com.example.demo.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CertificateTemplateServiceTest {
+
+    private final CertificateRenderer renderer = mock(CertificateRenderer.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CertificateTemplateRepository templateRepository = mock(CertificateTemplateRepository.class);
+    private final CertificateTemplateService service = new CertificateTemplateService(renderer);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "templateRepository", templateRepository);
+    }
+
+    @Test
+    void regenerateRendersTheCertificateAsIssued() throws Exception {
+        User user = new User();
+        user.setName("Asha Verma-Rao");
+        user.setEmail("asha@example.com");
+        CertificateTemplate template = new CertificateTemplate();
+        template.setId(3L);
+        CompiledTemplate compiled = mock(CompiledTemplate.class);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(templateRepository.findById(3L)).thenReturn(Optional.of(template));
+        when(renderer.compileStored(3L, 2)).thenReturn(compiled);
+        when(renderer.renderPdf(any(CompiledTemplate.class), anyMap())).thenReturn(new byte[] {1});
+
+        service.regeneratePdf(entry(LocalDate.of(2025, 6, 1)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> variables = ArgumentCaptor.forClass(Map.class);
+        verify(renderer).renderPdf(any(CompiledTemplate.class), variables.capture());
+        assertEquals("Asha Verma", variables.getValue().get("name"));
+        assertEquals("01 June 2025", variables.getValue().get("date"));
+        assertEquals("88", variables.getValue().get("percentage"));
+        assertEquals("asha@example.com", variables.getValue().get("email"));
+    }
+
+    @Test
+    void unchangedCertificateIsSkippedOnlyWhileStorageStillHoldsIt(@TempDir Path cacheDir) throws Exception {
+        ObjectStorage storage = mock(ObjectStorage.class);
+        CertificateBatchEngine engine = new CertificateBatchEngine(new SimpleMeterRegistry(), 1, 1, 1, false);
+        ReflectionTestUtils.setField(service, "storage", storage);
+        ReflectionTestUtils.setField(service, "batchEngine", engine);
+        ReflectionTestUtils.setField(service, "pdfCache", new PdfContentCache(true, cacheDir.toString(), 1 << 20, 100));
+        ReflectionTestUtils.setField(service, "catalogService", mock(CertificateCatalogService.class));
+
+        User user = new User();
+        user.setId(7L);
+        user.setName("Asha Verma");
+        CertificateTemplate template = new CertificateTemplate();
+        template.setId(3L);
+        CompiledTemplate compiled = mock(CompiledTemplate.class);
+        byte[] pdf = {1, 2, 3};
+        when(compiled.getVersion()).thenReturn("v1");
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(templateRepository.findAllById(any())).thenReturn(List.of(template));
+        when(renderer.compile(template)).thenReturn(compiled);
+        when(renderer.renderPdf(any(CompiledTemplate.class), anyMap())).thenReturn(pdf);
+        String path = "certificates/Asha_Verma/Mathematics.pdf";
+
+        try {
+            when(storage.etag(path)).thenReturn(Optional.empty());
+            service.processCertificates(List.of(request()));
+            verify(storage, times(1)).upload(path, "application/pdf", pdf);
+
+            // Storage still holds this instance's upload: neither rendered nor uploaded again
+            when(storage.etag(path)).thenReturn(Optional.of(PdfContentCache.md5Hex(pdf)));
+            service.processCertificates(List.of(request()));
+            verify(storage, times(1)).upload(path, "application/pdf", pdf);
+            verify(storage, times(2)).etag(path);
+
+            // Something else replaced the object since: the certificate is uploaded again
+            when(storage.etag(path)).thenReturn(Optional.of("0123456789abcdef0123456789abcdef"));
+            service.processCertificates(List.of(request()));
+            verify(storage, times(2)).upload(path, "application/pdf", pdf);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void regenerateRefusesAnEntryWithoutAnIssueDate() throws Exception {
+        assertThrows(IOException.class, () -> service.regeneratePdf(entry(null)));
+
+        verify(renderer, never()).renderPdf(any(CompiledTemplate.class), anyMap());
+    }
+
+    private static CertificateRequest request() {
+        CertificateRequest request = new CertificateRequest();
+        request.setUserId(7L);
+        request.setSubject("Mathematics");
+        request.setPercentage("88");
+        request.setTemplateName("3");
+        return request;
+    }
+
+    private static CertificateCatalogEntry entry(LocalDate issuedOn) {
+        CertificateCatalogEntry entry = new CertificateCatalogEntry();
+        entry.setUserId(7L);
+        entry.setStudentName("Asha Verma");
+        entry.setTemplateId(3L);
+        entry.setTemplateVersion(2);
+        entry.setSubject("Mathematics");
+        entry.setPercentage("88");
+        entry.setIssuedOn(issuedOn);
+        entry.setObjectPath("certificates/Asha_Verma/Mathematics.pdf");
+        return entry;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.Service.ExamImageService.ImageType;
+import com.example.demo.Service.ExamImageService.StoredImage;
+
+class ExamImageServiceTest {
+
+    private final ObjectStorage storage = mock(ObjectStorage.class);
+
+    @BeforeEach
+    void setUp() {
+        when(storage.uploadAsync(anyString(), anyString(), any(ObjectStorage.ContentSource.class), anyLong()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("https://cdn/" + invocation.getArgument(0)));
+        when(storage.uploadAsync(anyString(), anyString(), any(byte[].class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture("https://cdn/" + invocation.getArgument(0)));
+    }
+
+    private ExamImageService service(long maxPixels, long maxDecodedPixels) {
+        ExamImageService service = new ExamImageService(new Integer[] {480}, maxPixels, maxDecodedPixels);
+        ReflectionTestUtils.setField(service, "storage", storage);
+        return service;
+    }
+
+    @Test
+    void imageOverThePixelBudgetIsRefusedFromItsHeader() throws Exception {
+        // A tiny file whose header claims 1201 x 1,000,000 pixels
+        byte[] png = png(10, 10);
+        ByteBuffer.wrap(png).putInt(16, 1201).putInt(20, 1_000_000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service(50_000_000, 16_000_000).store(file(png), ImageType.PNG, true));
+        verify(storage, never()).uploadAsync(anyString(), anyString(), any(ObjectStorage.ContentSource.class), anyLong());
+    }
+
+    @Test
+    void objectPathIgnoresTheClientFileName() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("image", "../../certificates/a b%.png", "image/png", png(10, 10));
+
+        StoredImage stored = service(50_000_000, 16_000_000).store(file, ImageType.PNG, false);
+
+        assertTrue(stored.getImageUrl().matches("https://cdn/[0-9a-f-]{36}\\.png"), stored.getImageUrl());
+    }
+
+    @Test
+    void variantsAreMadeWithinTheDecodeCap() throws Exception {
+        StoredImage stored = service(50_000_000, 16_000_000).store(file(png(1000, 300)), ImageType.PNG, true);
+
+        assertEquals(1, stored.getVariants().size());
+        assertTrue(stored.getVariants().get(480).endsWith("-w480.png"), stored.getVariants().toString());
+    }
+
+    @Test
+    void variantsAreSkippedWhenTheDecodeWouldExceedTheCap() throws Exception {
+        // Decoded at step 2 this is 500 x 150 pixels, over a cap of 10,000
+        StoredImage stored = service(50_000_000, 10_000).store(file(png(1000, 300)), ImageType.PNG, true);
+
+        assertTrue(stored.getVariants().isEmpty());
+        assertTrue(stored.getImageUrl().startsWith("https://cdn/"));
+    }
+
+    private static MockMultipartFile file(byte[] png) {
+        return new MockMultipartFile("image", "photo.png", "image/png", png);
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.Repository.ExamRepository;
+import com.example.demo.dto.ExamSummary;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExamServiceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private ExamRepository examRepository;
+    private ExamService examService;
+
+    @BeforeEach
+    void setUp() {
+        examRepository = mock(ExamRepository.class);
+        examService = new ExamService(objectMapper, new SimpleMeterRegistry(), 60, 500);
+        ReflectionTestUtils.setField(examService, "examRepository", examRepository);
+    }
+
+    private static ExamSummary exam(String date) {
+        return new ExamSummary(UUID.randomUUID(), "Exam", "Maths", LocalDate.parse(date), LocalTime.NOON);
+    }
+
+    private String nextCursor(ExamService.CachedExamList page) throws Exception {
+        JsonNode cursor = objectMapper.readTree(page.getJson()).get("nextCursor");
+        return cursor.isNull() ? null : cursor.asText();
+    }
+
+    @Test
+    void cursorOfAFullPageResumesAfterItsLastRow() throws Exception {
+        ExamSummary last = exam("2025-03-02");
+        when(examRepository.findSummariesAscending(isNull(), any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(exam("2025-03-01"), last));
+
+        String cursor = nextCursor(examService.getExamPage(null, null, null, false, 2, null));
+        examService.getExamPage(null, null, null, false, 2, cursor);
+
+        verify(examRepository).findSummariesAscending(isNull(), any(), any(), eq(last.getDate()), eq(last.getId()),
+                any(Pageable.class));
+    }
+
+    @Test
+    void descendingPagesStartFromTheTop() {
+        when(examRepository.findSummariesDescending(any(), any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        examService.getExamPage("Maths", null, null, true, 10, null);
+
+        verify(examRepository).findSummariesDescending(eq("Maths"), eq(LocalDate.of(1, 1, 1)),
+                eq(LocalDate.of(9999, 12, 31)), eq(LocalDate.of(9999, 12, 31)), eq(new UUID(-1L, -1L)),
+                any(Pageable.class));
+    }
+
+    @Test
+    void shortPageHasNoCursor() throws Exception {
+        when(examRepository.findSummariesAscending(any(), any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(exam("2025-03-01")));
+
+        assertNull(nextCursor(examService.getExamPage(null, null, null, false, 2, null)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "MjAyNS0wMy0wMg", "bm90LWEtZGF0ZXwxMjM", "MjAyNS0wMy0wMnxub3QtYS11dWlk"})
+    void tamperedOrMalformedCursorIsRejected(String cursor) {
+        assertThrows(IllegalArgumentException.class,
+                () -> examService.getExamPage(null, null, null, false, 2, cursor));
+    }
+
+    @Test
+    void cursorWithAnExtraFieldIsRejected() {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("2025-03-02|" + UUID.randomUUID() + "|x").getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class,
+                () -> examService.getExamPage(null, null, null, false, 2, cursor));
+    }
+
+    @Test
+    void legacyDatesInIsoFormAreBackfilled() {
+        assertEquals(LocalDate.of(2024, 6, 1), ExamService.parseLegacyDate("2024-06-01"));
+        assertEquals(LocalDate.of(2024, 2, 29), ExamService.parseLegacyDate(" 2024-02-29 "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "01/06/2024", "1 June 2024", "2024-6-1", "2024-02-30", "2023-02-29", "2024-13-01",
+            "+12024-01-01", "2024-06-01T10:00"})
+    void legacyDatesThatAreNotRealIsoDatesAreLeftUnset(String value) {
+        assertNull(ExamService.parseLegacyDate(value));
+    }
+
+    @Test
+    void legacyTimesWithOrWithoutSecondsAreBackfilled() {
+        assertEquals(LocalTime.of(9, 30), ExamService.parseLegacyTime("9:30"));
+        assertEquals(LocalTime.of(14, 5), ExamService.parseLegacyTime("14:05"));
+        assertEquals(LocalTime.of(14, 5, 30), ExamService.parseLegacyTime("14:05:30"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "9.30", "9:30 AM", "930", "25:00", "10:60", "10:00:61", "123:00"})
+    void legacyTimesThatAreNotRealTimesAreLeftUnset(String value) {
+        assertNull(ExamService.parseLegacyTime(value));
+    }
+}
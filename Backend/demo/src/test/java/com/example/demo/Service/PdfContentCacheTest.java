@@ -0,0 +1,124 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PdfContentCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private PdfContentCache cache(long maxBytes) {
+        return new PdfContentCache(true, dir.toString(), maxBytes, 100);
+    }
+
+    private static byte[] pdf(int size, int fill) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+
+    @Test
+    void missThenHitAfterPut() {
+        PdfContentCache cache = cache(1000);
+        assertTrue(cache.get("a").isEmpty());
+
+        cache.put("a", pdf(100, 1));
+
+        assertArrayEquals(pdf(100, 1), cache.get("a").orElseThrow());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOnceOverMaxBytes() {
+        PdfContentCache cache = cache(250);
+        cache.put("a", pdf(100, 1));
+        cache.put("b", pdf(100, 2));
+        cache.get("a");
+
+        cache.put("c", pdf(100, 3));
+
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        assertFalse(Files.exists(dir.resolve("b.pdf")));
+    }
+
+    @Test
+    void documentLargerThanTheWholeCacheIsNotStored() {
+        PdfContentCache cache = cache(50);
+        cache.put("big", pdf(100, 1));
+        assertTrue(cache.get("big").isEmpty());
+    }
+
+    @Test
+    void entriesSurviveARestartAndTheBoundStillHolds() throws Exception {
+        PdfContentCache first = cache(1000);
+        first.put("a", pdf(100, 1));
+        first.put("b", pdf(100, 2));
+        Files.setLastModifiedTime(dir.resolve("a.pdf"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(dir.resolve("b.pdf"), FileTime.fromMillis(2_000));
+
+        assertArrayEquals(pdf(100, 1), cache(1000).get("a").orElseThrow());
+        // Reopened with room for one entry, the least recently used file goes
+        Files.setLastModifiedTime(dir.resolve("a.pdf"), FileTime.fromMillis(1_000));
+        PdfContentCache smaller = cache(150);
+        assertTrue(smaller.get("a").isEmpty());
+        assertTrue(smaller.get("b").isPresent());
+    }
+
+    @Test
+    void entryDeletedFromDiskIsAMiss() throws Exception {
+        PdfContentCache cache = cache(1000);
+        cache.put("a", pdf(100, 1));
+        Files.delete(dir.resolve("a.pdf"));
+        assertTrue(cache.get("a").isEmpty());
+    }
+
+    @Test
+    void uploadedKeyIsTrackedPerPathAndGivesTheBytesBack() {
+        PdfContentCache cache = cache(1000);
+        cache.put("k1", pdf(10, 1));
+        cache.markUploaded("certificates/1/maths.pdf", "k1", "md5-1");
+
+        assertEquals("md5-1", cache.uploadedDigest("certificates/1/maths.pdf", "k1").orElseThrow());
+        assertTrue(cache.uploadedDigest("certificates/1/maths.pdf", "k2").isEmpty());
+        assertArrayEquals(pdf(10, 1), cache.getUploaded("certificates/1/maths.pdf").orElseThrow());
+        assertTrue(cache.getUploaded("certificates/2/maths.pdf").isEmpty());
+    }
+
+    @Test
+    void uploadedMapIsBoundedByEntryCount() {
+        PdfContentCache cache = new PdfContentCache(true, dir.toString(), 1000, 2);
+        cache.markUploaded("p1", "k1", "m1");
+        cache.markUploaded("p2", "k2", "m2");
+        cache.markUploaded("p3", "k3", "m3");
+
+        assertTrue(cache.uploadedDigest("p1", "k1").isEmpty());
+        assertTrue(cache.uploadedDigest("p3", "k3").isPresent());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        PdfContentCache cache = new PdfContentCache(false, dir.toString(), 1000, 100);
+        cache.put("a", pdf(10, 1));
+        cache.markUploaded("p", "a", "m");
+        assertTrue(cache.get("a").isEmpty());
+        assertTrue(cache.uploadedDigest("p", "a").isEmpty());
+    }
+
+    @Test
+    void keySeparatesPartsSoShiftedBoundariesDiffer() {
+        assertNotEquals(PdfContentCache.key("ab", "c"), PdfContentCache.key("a", "bc"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.Service.CertificateBatchEngine.ItemListener;
+import com.example.demo.dto.CertificateRequest;
+import com.example.demo.dto.CsvRowResult;
+
+class ProcessCsvPdfServiceTest {
+
+    private CertificateTemplateService certificateService;
+    private final List<List<CertificateRequest>> chunks = new ArrayList<>();
+    private final List<CsvRowResult> results = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        certificateService = mock(CertificateTemplateService.class);
+        // Renders succeed except for user 13
+        doAnswer(invocation -> {
+            List<CertificateRequest> chunk = invocation.getArgument(0);
+            ItemListener listener = invocation.getArgument(1);
+            chunks.add(List.copyOf(chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.get(i).getUserId() == 13L) {
+                    listener.onFailure(i, chunk.get(i), new IllegalStateException("upload failed"));
+                } else {
+                    listener.onSuccess(i, chunk.get(i));
+                }
+            }
+            return null;
+        }).when(certificateService).processCertificates(anyList(), any(ItemListener.class));
+    }
+
+    private ProcessCsvPdfService.ImportSummary importCsv(String csv, int chunkSize) throws Exception {
+        ProcessCsvPdfService service = new ProcessCsvPdfService(certificateService, chunkSize);
+        ProcessCsvPdfService.ImportSummary summary =
+                service.processCsv(new StringReader(csv), "Mathematics", "template1", results::add);
+        results.sort(Comparator.comparingLong(CsvRowResult::getRow));
+        return summary;
+    }
+
+    @Test
+    void reportsEachInvalidRowWithItsNumberAndKeepsGoing() throws Exception {
+        String csv = """
+                userId,percentage
+                1,85
+                ,70
+                abc,70
+                4,
+                5,101
+                6,50%
+                7,40,extra
+                """;
+
+        ProcessCsvPdfService.ImportSummary summary = importCsv(csv, 500);
+
+        assertEquals(7, summary.getRows());
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(5, summary.getFailed());
+        assertEquals(7, results.size());
+        assertRow(results.get(0), 1, "ok", null);
+        assertRow(results.get(1), 2, "error", "Missing userId");
+        assertRow(results.get(2), 3, "error", "Invalid userId: abc");
+        assertRow(results.get(3), 4, "error", "Missing percentage");
+        assertRow(results.get(4), 5, "error", "Percentage out of range: 101");
+        assertRow(results.get(5), 6, "ok", null);
+        assertRow(results.get(6), 7, "error", "Expected 2 columns but found 3");
+        assertEquals(4L, results.get(3).getUserId());
+    }
+
+    @Test
+    void renderFailuresAreReportedAgainstTheirRow() throws Exception {
+        ProcessCsvPdfService.ImportSummary summary = importCsv("userId,percentage\n12,80\n13,80\n14,80\n", 500);
+
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(1, summary.getFailed());
+        assertRow(results.get(1), 2, "error", "upload failed");
+        assertEquals(13L, results.get(1).getUserId());
+    }
+
+    @Test
+    void validRowsAreSentInChunksWithColumnsOverridingDefaults() throws Exception {
+        String csv = """
+                USERID,Percentage,subject,templateName
+                1,80,,
+                2,80,Physics,template2
+                3,80,,
+                """;
+
+        importCsv(csv, 2);
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+        assertEquals("Mathematics", chunks.get(0).get(0).getSubject());
+        assertEquals("template1", chunks.get(0).get(0).getTemplateName());
+        assertEquals("Physics", chunks.get(0).get(1).getSubject());
+        assertEquals("template2", chunks.get(0).get(1).getTemplateName());
+    }
+
+    @Test
+    void cancellingStopsBeforeTheNextChunk() throws Exception {
+        ProcessCsvPdfService service = new ProcessCsvPdfService(certificateService, 2);
+
+        // Cancelled as soon as the first chunk has been rendered, as on a client disconnect
+        ProcessCsvPdfService.ImportSummary summary = service.processCsv(
+                new StringReader("userId,percentage\n1,80\n2,80\n3,80\n4,80\n5,80\n"),
+                "Mathematics", "template1", results::add, () -> !chunks.isEmpty());
+
+        assertTrue(summary.isCancelled());
+        assertEquals(1, chunks.size());
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void fileWithOnlyBadRowsNeverReachesTheRenderer() throws Exception {
+        ProcessCsvPdfService.ImportSummary summary = importCsv("userId,percentage\nx,1\n", 500);
+
+        assertEquals(1, summary.getFailed());
+        verify(certificateService, never()).processCertificates(anyList(), any(ItemListener.class));
+    }
+
+    private static void assertRow(CsvRowResult result, long row, String status, String error) {
+        assertEquals(row, result.getRow());
+        assertEquals(status, result.getStatus());
+        assertEquals(error, result.getError());
+    }
+}
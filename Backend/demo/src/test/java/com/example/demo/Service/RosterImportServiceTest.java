@@ -0,0 +1,137 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.demo.dto.UserRowResult;
+import com.example.demo.model.User;
+
+class RosterImportServiceTest {
+
+    private UserService userService;
+    private PasswordHashingService passwordHashing;
+    private final List<List<User>> inserted = new ArrayList<>();
+    private final List<String> insertedHashes = new ArrayList<>();
+    private final List<UserRowResult> results = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userService = mock(UserService.class);
+        passwordHashing = mock(PasswordHashingService.class);
+        when(passwordHashing.encodeAll(anyList(), any(PasswordEncoder.class)))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream()
+                        .map(password -> "hash:" + password).toList());
+        // taken@example.com is already registered
+        when(userService.insertUsers(anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            List<Long> rows = invocation.getArgument(1);
+            inserted.add(List.copyOf(users));
+            insertedHashes.addAll(invocation.getArgument(2));
+            List<UserRowResult> outcome = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                String email = users.get(i).getEmail();
+                outcome.add(email.equals("taken@example.com")
+                        ? UserRowResult.conflict(rows.get(i), email, "Email already registered")
+                        : UserRowResult.ok(rows.get(i), email, "user" + rows.get(i)));
+            }
+            return outcome;
+        });
+    }
+
+    private RosterImportService.ImportSummary importRoster(String csv, int chunkSize) throws Exception {
+        RosterImportService service = new RosterImportService(userService, passwordHashing, 4, chunkSize);
+        RosterImportService.ImportSummary summary = service.importRoster(new StringReader(csv), results::add);
+        results.sort(Comparator.comparingLong(UserRowResult::getRow));
+        return summary;
+    }
+
+    @Test
+    void duplicateEmailsWithinTheFileAreConflictsOnTheirOwnRows() throws Exception {
+        String csv = """
+                name,email,password
+                Asha,asha@example.com,pw1
+                Ravi,ravi@example.com,pw2
+                Asha Again,ASHA@example.com,pw3
+                Ravi Again,ravi@example.com,pw4
+                """;
+
+        RosterImportService.ImportSummary summary = importRoster(csv, 2000);
+
+        assertEquals(4, summary.getRows());
+        assertEquals(2, summary.getCreated());
+        assertEquals(2, summary.getConflicts());
+        assertRow(results.get(0), 1, "ok", null);
+        assertRow(results.get(1), 2, "ok", null);
+        assertRow(results.get(2), 3, "conflict", "Duplicate email in roster");
+        assertRow(results.get(3), 4, "conflict", "Duplicate email in roster");
+        // Only the first occurrence is inserted
+        assertEquals(2, inserted.get(0).size());
+    }
+
+    @Test
+    void emailsAlreadyRegisteredAreReportedAsConflicts() throws Exception {
+        String csv = "name,email,password\nTaken,taken@example.com,pw\nNew,new@example.com,pw\n";
+
+        RosterImportService.ImportSummary summary = importRoster(csv, 2000);
+
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getConflicts());
+        assertRow(results.get(0), 1, "conflict", "Email already registered");
+        assertRow(results.get(1), 2, "ok", null);
+    }
+
+    @Test
+    void invalidRowsAreErrorsAndDuplicatesAreCaughtAcrossChunks() throws Exception {
+        String csv = """
+                name,email,password,phone,school,class
+                Asha,asha@example.com,pw,111,Central,7A
+                ,nobody@example.com,pw,,,
+                Bad,not-an-email,pw,,,
+                NoPass,nopass@example.com,,,,
+                Asha Again,asha@example.com,pw,,,
+                """;
+
+        RosterImportService.ImportSummary summary = importRoster(csv, 1);
+
+        assertEquals(5, summary.getRows());
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getConflicts());
+        assertEquals(3, summary.getFailed());
+        assertRow(results.get(1), 2, "error", "Missing name");
+        assertRow(results.get(2), 3, "error", "Missing or invalid email");
+        assertRow(results.get(3), 4, "error", "Missing password");
+        assertRow(results.get(4), 5, "conflict", "Duplicate email in roster");
+
+        User asha = inserted.get(0).get(0);
+        assertEquals("7A", asha.getUserClass());
+        assertEquals("Central", asha.getSchool());
+    }
+
+    @Test
+    void chunksAreInsertedWithTheirHashes() throws Exception {
+        importRoster("name,email,password\nAsha,asha@example.com,secret\n", 2000);
+
+        assertNull(results.get(0).getError());
+        assertEquals(List.of("hash:secret"), insertedHashes);
+    }
+
+    private static void assertRow(UserRowResult result, long row, String status, String error) {
+        assertEquals(row, result.getRow());
+        assertEquals(status, result.getStatus());
+        assertEquals(error, result.getError());
+    }
+}
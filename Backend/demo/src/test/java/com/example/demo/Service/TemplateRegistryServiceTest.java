@@ -0,0 +1,88 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.Repository.CertificateTemplateRepository;
+import com.example.demo.Repository.CertificateTemplateVersionRepository;
+import com.example.demo.model.CertificateTemplate;
+import com.example.demo.model.CertificateTemplateVersion;
+
+class TemplateRegistryServiceTest {
+
+    private static final String HTML = "<html><body><p th:text=\"${name}\">x</p></body></html>";
+
+    private final CertificateTemplateRepository templateRepository = mock(CertificateTemplateRepository.class);
+    private final CertificateTemplateVersionRepository versionRepository = mock(CertificateTemplateVersionRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private TemplateRegistryService registry;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        CertificateTemplate template = new CertificateTemplate();
+        template.setId(5L);
+        when(templateRepository.findById(5L)).thenReturn(Optional.of(template));
+        registry = new TemplateRegistryService(templateRepository, versionRepository, mock(CertificateRenderer.class),
+                mock(CertificateTemplateService.class), transactionTemplate, 524288);
+    }
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void uploadRetriesAboveAVersionNumberTakenConcurrently() {
+        when(versionRepository.findFirstByTemplateIdOrderByVersionDesc(5L))
+                .thenReturn(Optional.of(version(3)), Optional.of(version(4)));
+        when(versionRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("uk_template_version"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        TemplateRegistryService.UploadResult result = registry.upload(5L, null, null, HTML);
+
+        assertEquals(5, result.getVersion().getVersion());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void secondClashIsThrownForTheCallerToReport() {
+        when(versionRepository.findFirstByTemplateIdOrderByVersionDesc(5L)).thenReturn(Optional.of(version(3)));
+        when(versionRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("uk_template_version"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> registry.upload(5L, null, null, HTML));
+    }
+
+    @Test
+    void uploadBreakingThePolicyIsRefusedBeforeAnythingIsSaved() {
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.upload(5L, null, null, "<p th:utext=\"${name}\">x</p>"));
+
+        verify(transactionTemplate, times(0)).execute(any());
+    }
+
+    private static CertificateTemplateVersion version(int number) {
+        CertificateTemplateVersion version = new CertificateTemplateVersion();
+        version.setTemplateId(5L);
+        version.setVersion(number);
+        version.setContentHash("other");
+        version.setStatus(CertificateTemplateVersion.Status.READY);
+        return version;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TemplateSourcePolicyTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"template1", "template2", "template3"})
+    void bundledTemplatesPass(String templateName) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("templates/" + templateName + ".html")) {
+            String html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertDoesNotThrow(() -> TemplateSourcePolicy.check(html));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<p th:text=\"${name}\">x</p>",
+            "<p data-th-text=\"${name}\">x</p>",
+            "<p th:if=\"${percentage != null}\" th:style=\"'color: #1d4ed8'\">[[${subject}]]</p>",
+            "<p th:text=\"${#strings.toUpperCase(name)}\">x</p>",
+            "<img th:src=\"@{/img/logo.png}\" alt=\"logo\"/>",
+            "<p>Questions: office@example.com</p>"
+    })
+    void allowedTemplatesPass(String html) {
+        assertDoesNotThrow(() -> TemplateSourcePolicy.check(html));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<p th:utext=\"${name}\">x</p>",
+            "<p data-th-utext=\"${name}\">x</p>",
+            "<p th:attr=\"onclick=${name}\">x</p>",
+            "<div th:replace=\"~{other :: part}\"></div>",
+            "<p th:text=\"${T(java.lang.Runtime).getRuntime().exec('id')}\">x</p>",
+            "<p th:text=\"${t (java.lang.System).getenv()}\">x</p>",
+            "<p th:text=\"${new java.io.File('/etc/passwd').exists()}\">x</p>",
+            "<p th:text=\"${@environment.getProperty('spring.datasource.password')}\">x</p>",
+            "<p th:text=\"${name.getClass().forName('java.lang.Runtime')}\">x</p>",
+            "<p th:text=\"__${name}__\">x</p>",
+            "<p th:text=\"${#ctx.getVariable('name')}\">x</p>",
+            "<p>[[${T(java.lang.System).exit(0)}]]</p>",
+            "<p>[(${name})]</p>",
+            "<script>alert(1)</script>",
+            "<img src=\"x.png\" onerror=\"alert(1)\"/>",
+            "<a href=\"javascript:alert(1)\">x</a>",
+            "<iframe src=\"https://example.com\"></iframe>"
+    })
+    void unsafeTemplatesAreRefused(String html) {
+        assertThrows(IllegalArgumentException.class, () -> TemplateSourcePolicy.check(html));
+    }
+}
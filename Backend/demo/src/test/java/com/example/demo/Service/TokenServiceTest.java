@@ -0,0 +1,179 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenServiceTest {
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final String SECRET = Base64.getEncoder().encodeToString(KEY);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /** A clock the test moves by hand. */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-06-01T10:00:00Z");
+
+        void advance(Duration duration) { now = now.plus(duration); }
+
+        @Override public Instant instant() { return now; }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+    }
+
+    private MutableClock clock;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        tokenService = new TokenService(new ObjectMapper(), new SimpleMeterRegistry(), SECRET, 60, 100, clock);
+    }
+
+    private static User user(User.Role role) {
+        User user = new User();
+        user.setId(42L);
+        user.setUserId("user42");
+        user.setEmail("asha@example.com");
+        user.setRole(role);
+        return user;
+    }
+
+    private static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String signed(String header, String payload) throws Exception {
+        String signingInput = encode(header) + "." + encode(payload);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY, "HmacSHA256"));
+        return signingInput + "." + ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private long exp() {
+        return clock.instant().plus(Duration.ofMinutes(30)).getEpochSecond();
+    }
+
+    @Test
+    void issuedTokenVerifiesWithItsClaims() {
+        String token = tokenService.issue(user(User.Role.TEACHER));
+
+        TokenService.TokenClaims claims = tokenService.verify(token).orElseThrow();
+
+        assertEquals(42L, claims.getId());
+        assertEquals("user42", claims.getUserId());
+        assertEquals("asha@example.com", claims.getEmail());
+        assertEquals(User.Role.TEACHER, claims.getRole());
+        assertEquals(clock.instant().plus(Duration.ofMinutes(60)), claims.getExpiresAt());
+        // Second call is answered from the cache with the same result
+        assertEquals(claims, tokenService.verify(token).orElseThrow());
+    }
+
+    @Test
+    void userWithoutARoleGetsStudent() {
+        String token = tokenService.issue(user(null));
+        assertEquals(User.Role.STUDENT, tokenService.verify(token).orElseThrow().getRole());
+    }
+
+    @Test
+    void tokenWithoutARoleClaimGetsStudent() throws Exception {
+        String token = signed("{\"alg\":\"HS256\",\"typ\":\"JWT\"}",
+                "{\"sub\":\"42\",\"uid\":\"user42\",\"email\":\"a@example.com\",\"exp\":" + exp() + "}");
+        assertEquals(User.Role.STUDENT, tokenService.verify(token).orElseThrow().getRole());
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String token = tokenService.issue(user(User.Role.STUDENT));
+        int last = token.length() - 1;
+        String tampered = token.substring(0, last) + (token.charAt(last) == 'A' ? 'B' : 'A');
+
+        assertTrue(tokenService.verify(tampered).isEmpty());
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        String token = tokenService.issue(user(User.Role.STUDENT));
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("STUDENT", "ADMIN");
+        String tampered = parts[0] + "." + encode(payload) + "." + parts[2];
+
+        assertTrue(tokenService.verify(tampered).isEmpty());
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        TokenService other = new TokenService(new ObjectMapper(), new SimpleMeterRegistry(),
+                Base64.getEncoder().encodeToString("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII)),
+                60, 100, clock);
+        assertTrue(tokenService.verify(other.issue(user(User.Role.ADMIN))).isEmpty());
+    }
+
+    @Test
+    void expiredTokenIsRejectedEvenWhenCached() {
+        String token = tokenService.issue(user(User.Role.STUDENT));
+        assertTrue(tokenService.verify(token).isPresent());
+
+        clock.advance(Duration.ofMinutes(61));
+
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    void expiredTokenIsRejectedOnFirstSight() throws Exception {
+        String token = signed("{\"alg\":\"HS256\",\"typ\":\"JWT\"}",
+                "{\"sub\":\"42\",\"role\":\"ADMIN\",\"exp\":" + clock.instant().minusSeconds(1).getEpochSecond() + "}");
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"alg\":\"none\",\"typ\":\"JWT\"}", "{\"alg\":\"HS512\",\"typ\":\"JWT\"}",
+            "{\"typ\":\"JWT\",\"alg\":\"HS256\"}"})
+    void otherHeadersAreRejectedEvenWhenSigned(String header) throws Exception {
+        String token = signed(header, "{\"sub\":\"42\",\"role\":\"ADMIN\",\"exp\":" + exp() + "}");
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    void unsignedTokenIsRejected() {
+        String token = encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "."
+                + encode("{\"sub\":\"42\",\"role\":\"ADMIN\",\"exp\":" + exp() + "}") + ".";
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    void unknownRoleIsRejected() throws Exception {
+        String token = signed("{\"alg\":\"HS256\",\"typ\":\"JWT\"}",
+                "{\"sub\":\"42\",\"role\":\"ROOT\",\"exp\":" + exp() + "}");
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc", "a.b", "a.b.c", "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9",
+            "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.e30", "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.!!!.!!!",
+            "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.bm90IGpzb24.c2ln"})
+    void malformedTokensAreRejected(String token) {
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.dto.UserRowResult;
+import com.example.demo.model.User;
+
+class UserServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserService service = new UserService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "bulkBatchSize", 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt())).thenReturn(List.of(11L, 12L, 13L, 14L));
+    }
+
+    @Test
+    void rowsMissingFromReturningAreConflicts() {
+        // taken@ already exists, and a@ repeats within the second batch
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("a@example.com"), List.of("b@example.com"));
+
+        List<UserRowResult> results = service.insertUsers(
+                List.of(user("a@example.com"), user("taken@example.com"), user("b@example.com"), user("b@example.com")),
+                List.of(1L, 2L, 3L, 4L), List.of("h1", "h2", "h3", "h4"));
+
+        assertEquals(List.of("ok", "conflict", "ok", "conflict"), results.stream().map(UserRowResult::getStatus).toList());
+        assertEquals("user11", results.get(0).getUserId());
+        assertEquals("user13", results.get(2).getUserId());
+        assertEquals(4, results.get(3).getRow());
+    }
+
+    @Test
+    void eachBatchIsOneMultiRowInsertReturningEmails() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(new ArrayList<>());
+
+        service.insertUsers(List.of(user("a@x"), user("b@x"), user("c@x")), List.of(1L, 2L, 3L),
+                List.of("h1", "h2", "h3"));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).queryForList(sql.capture(), eq(String.class), any(Object[].class));
+        assertTrue(sql.getAllValues().get(0).contains("(?, ?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?, ?) on conflict"),
+                sql.getAllValues().get(0));
+        assertTrue(sql.getAllValues().get(1).endsWith("(?, ?, ?, ?, ?, ?, ?, ?) on conflict (email) do nothing returning email"),
+                sql.getAllValues().get(1));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setName("Student");
+        user.setEmail(email);
+        return user;
+    }
+}
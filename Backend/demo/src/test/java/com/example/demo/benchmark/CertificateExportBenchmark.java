@@ -0,0 +1,93 @@
+package com.example.demo.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.Service.CertificateRenderer;
+import com.example.demo.model.CertificateTemplate;
+
+/**
+ * A class of certificates as separate PDFs versus one merged export. The {@link Output}
+ * counters add up the bytes produced and the exports run, so the JMH report shows the output
+ * size of each approach next to its time: bytes divided by exports is the size of one export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CertificateExportBenchmark {
+
+    @Param({"template1", "template2", "template3"})
+    public String templateName;
+
+    @Param({"40"})
+    public int classSize;
+
+    private CertificateRenderer renderer;
+    private CertificateTemplate template;
+    private final List<Map<String, Object>> students = new ArrayList<>();
+
+    /** Totals over the whole run, reported by JMH as secondary results. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Output {
+        public long bytes;
+        public long exports;
+
+        void add(long size) {
+            bytes += size;
+            exports++;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        renderer = new CertificateRenderer(true);
+        template = CertificateFixtures.template(templateName);
+        for (int i = 0; i < classSize; i++) {
+            students.add(CertificateFixtures.student(i));
+        }
+    }
+
+    @Benchmark
+    public long separatePdfs(Output output) throws IOException {
+        long bytes = 0;
+        for (Map<String, Object> variables : students) {
+            bytes += renderer.renderPdf(template, variables).length;
+        }
+        output.add(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public long mergedPdf(Output output) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CertificateRenderer.MergedPdf merged = renderer.openMergedPdf(50)) {
+            for (Map<String, Object> variables : students) {
+                merged.append(template, variables);
+            }
+            merged.writeTo(out);
+        }
+        output.add(out.size());
+        return out.size();
+    }
+}
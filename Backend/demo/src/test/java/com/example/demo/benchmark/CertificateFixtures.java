@@ -0,0 +1,42 @@
+package com.example.demo.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.demo.model.CertificateTemplate;
+
+/** Templates and certificate variables shared by the rendering benchmarks. */
+final class CertificateFixtures {
+
+    private CertificateFixtures() {
+    }
+
+    static CertificateTemplate template(String templateName) {
+        CertificateTemplate template = new CertificateTemplate();
+        template.setId(1L);
+        template.setName(templateName);
+        return template;
+    }
+
+    /** One typical certificate. */
+    static Map<String, Object> variables() {
+        return variables("Asha Verma", "asha@example.com", "9876543210", "92");
+    }
+
+    /** Student {@code i} of a class, so a batch is not the same document repeated. */
+    static Map<String, Object> student(int i) {
+        return variables("Student " + i, "student" + i + "@example.com",
+                "98765" + String.format("%05d", i), String.valueOf(60 + i % 40));
+    }
+
+    private static Map<String, Object> variables(String name, String email, String phone, String percentage) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("email", email);
+        variables.put("phone", phone);
+        variables.put("percentage", percentage);
+        variables.put("subject", "Mathematics");
+        variables.put("date", "01 June 2025");
+        return variables;
+    }
+}
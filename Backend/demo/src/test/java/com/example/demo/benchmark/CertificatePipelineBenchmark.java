@@ -0,0 +1,78 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.Service.CertificateRenderer;
+import com.example.demo.model.CertificateTemplate;
+
+/**
+ * Each stage of certificate rendering measured on its own, for every bundled template.
+ * Throughput mode gives ops/s, sample-time mode gives p50/p90/p99 latency, and the gc
+ * profiler configured in the benchmark profile adds bytes allocated per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificatePipelineBenchmark {
+
+    @Param({"template1", "template2", "template3"})
+    public String templateName;
+
+    private CertificateRenderer renderer;
+    private CertificateTemplate template;
+    private Map<String, Object> variables;
+    private String html;
+    private byte[] pdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        renderer = new CertificateRenderer(true);
+        template = CertificateFixtures.template(templateName);
+        variables = CertificateFixtures.variables();
+
+        html = renderer.renderHtml(template, variables);
+        pdf = renderer.htmlToPdf(html);
+    }
+
+    @Benchmark
+    public String thymeleaf() {
+        return renderer.renderHtml(template, variables);
+    }
+
+    @Benchmark
+    public byte[] htmlToPdfFastMode() throws IOException {
+        return renderer.htmlToPdf(html, true);
+    }
+
+    @Benchmark
+    public byte[] htmlToPdfSlowMode() throws IOException {
+        return renderer.htmlToPdf(html, false);
+    }
+
+    @Benchmark
+    public byte[] previewPng300Dpi() throws IOException {
+        return renderer.renderPng(pdf, 300);
+    }
+
+    @Benchmark
+    public Map<CertificateRenderer.PreviewTier, byte[]> previewTiers() throws IOException {
+        return renderer.renderPreviews(pdf);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.Service.CertificateRenderer;
+import com.example.demo.model.CertificateTemplate;
+
+/**
+ * Per-certificate cost of Thymeleaf + openhtmltopdf with the render cache off (every call
+ * re-resolves the template and fonts, as before) and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificateRenderBenchmark {
+
+    @Param({"template1", "template2", "template3"})
+    public String templateName;
+
+    @Param({"false", "true"})
+    public boolean renderCache;
+
+    private CertificateRenderer renderer;
+    private CertificateTemplate template;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        renderer = new CertificateRenderer(renderCache);
+        template = CertificateFixtures.template(templateName);
+        variables = CertificateFixtures.variables();
+    }
+
+    @Benchmark
+    public byte[] renderCertificate() throws IOException {
+        return renderer.renderPdf(template, variables);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.Service.LocalFileStorage;
+import com.example.demo.Service.StorageStubServer;
+import com.example.demo.Service.SupabaseStorageClient;
+import com.example.demo.config.VirtualThreads;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Request throughput of the upload and list paths while storage answers slowly. Each
+ * invocation fires {@value #BURST} concurrent requests, as a traffic spike would, and every
+ * request blocks on the storage client the way the controllers do, against the embedded
+ * {@link StorageStubServer} with a fixed response latency. "platform" runs them on a
+ * 200-thread pool (Tomcat's default), "virtual" on one virtual thread each, the same split as
+ * {@code spring.threads.virtual.enabled}. The virtual mode needs a JDK 21+ runtime.
+ *
+ * <p>This measures the storage client under the two thread models, not the HTTP endpoints.
+ * On a 4-core machine both modes stay at roughly 400-700 requests/s at 100 ms latency, far
+ * below the 2,000/s that 200 platform threads already allow, so the ceiling is the stub server
+ * and the HTTP client rather than request threads, and the run does not show virtual threads
+ * ahead. For an end-to-end comparison run {@code LoadSuite} against the app started with
+ * {@code storage.backend=stub}, once with {@code spring.threads.virtual.enabled=true} and once
+ * without.
+ *
+ * <pre>mvn -Pbenchmark -DskipTests verify -Dbenchmark.include=StorageConcurrencyBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+// Without nodelay the JDK HTTP server holds small responses back ~40 ms (Nagle), which swamps the latency under test
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class StorageConcurrencyBenchmark {
+
+    static final int BURST = 1000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"100", "500"})
+    public long storageLatencyMs;
+
+    private Path storageDir;
+    private StorageStubServer stub;
+    private SupabaseStorageClient storageClient;
+    private ExecutorService requestThreads;
+    private final byte[] image = new byte[16 * 1024];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        boolean virtual = "virtual".equals(mode);
+        if (virtual && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("mode=virtual needs Java 21+, running " + Runtime.version());
+        }
+        storageDir = Files.createTempDirectory("storage-bench");
+        stub = new StorageStubServer(new LocalFileStorage(storageDir.toString(), "http://127.0.0.1/", 64),
+                0, storageLatencyMs, 0, 0, 503);
+        storageClient = new SupabaseStorageClient(stub.url(), "bench-key", "bench", BURST, 5000, 60000, 0, 50, 1000, virtual,
+                new SimpleMeterRegistry());
+        requestThreads = virtual
+                ? VirtualThreads.newPerTaskExecutor("request-")
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        requestThreads.shutdownNow();
+        storageClient.shutdown();
+        stub.close();
+        try (Stream<Path> files = Files.walk(storageDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int uploadImage() throws Exception {
+        return burst(i -> storageClient.upload("bench/" + i + ".png", "image/png", image).length());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int listCertificates() throws Exception {
+        return burst(i -> storageClient.list("certificates/").size());
+    }
+
+    private interface Request {
+        int handle(int index) throws Exception;
+    }
+
+    private int burst(Request request) throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            int index = i;
+            responses.add(requestThreads.submit(() -> request.handle(index)));
+        }
+        int bytes = 0;
+        for (Future<Integer> response : responses) {
+            bytes += response.get();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.config;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.example.demo.Service.TokenService;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+
+@SpringJUnitWebConfig(SecurityConfigTest.Config.class)
+class SecurityConfigTest {
+
+    private static final String SECRET =
+            Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+
+    @Configuration
+    @EnableWebMvc
+    @Import(SecurityConfig.class)
+    static class Config {
+        @Bean
+        TokenService tokenService() {
+            return new TokenService(new ObjectMapper(), new SimpleMeterRegistry(), SECRET, 60, 100);
+        }
+
+        @Bean
+        AnyRoute anyRoute() {
+            return new AnyRoute();
+        }
+    }
+
+    /** Answers every route, so a status other than 200 comes from the security rules. */
+    @RestController
+    static class AnyRoute {
+        @RequestMapping("/**")
+        String ok() {
+            return "ok";
+        }
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter securityFilterChain;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).addFilters(securityFilterChain).build();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/templates/generate", "/api/templates/export", "/api/pdf/upload",
+            "/api/templates/certificates/catalog/rebuild", "/api/templates/generate-preview/1", "/api/exams",
+            "/api/exams/7/questions", "/api/upload/image"})
+    void studentCannotIssueCertificatesOrChangeExams(String route) throws Exception {
+        mvc.perform(post(route).header(HttpHeaders.AUTHORIZATION, bearer(User.Role.STUDENT)))
+                .andExpect(status().isForbidden());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/templates/certificates/all", "/api/templates/jobs/00000000-0000-0000-0000-000000000001"})
+    void studentCannotBrowseEveryonesCertificatesOrJobs(String route) throws Exception {
+        mvc.perform(get(route).header(HttpHeaders.AUTHORIZATION, bearer(User.Role.STUDENT)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void studentCannotEditOrDeleteAnExam() throws Exception {
+        mvc.perform(put("/api/exams/7").header(HttpHeaders.AUTHORIZATION, bearer(User.Role.STUDENT)))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/api/exams/7")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(User.Role.STUDENT)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void studentKeepsTheirOwnCertificateLookups() throws Exception {
+        // The controller narrows these to the student's own key
+        mvc.perform(get("/api/templates/certificates/student/Asha/zip")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(User.Role.STUDENT)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void staffMayIssueCertificatesAndChangeExams() throws Exception {
+        mvc.perform(post("/api/templates/generate").header(HttpHeaders.AUTHORIZATION, bearer(User.Role.TEACHER)))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/exams").header(HttpHeaders.AUTHORIZATION, bearer(User.Role.ADMIN)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void examsCanBeBrowsedWithoutAToken() throws Exception {
+        mvc.perform(get("/api/exams")).andExpect(status().isOk());
+        mvc.perform(post("/api/exams")).andExpect(status().isUnauthorized());
+    }
+
+    private String bearer(User.Role role) {
+        User user = new User();
+        user.setId(42L);
+        user.setUserId("user42");
+        user.setEmail("asha@example.com");
+        user.setRole(role);
+        return "Bearer " + tokenService.issue(user);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.example.demo.Service.CertificateBundleService;
+import com.example.demo.Service.CertificateCatalogService;
+import com.example.demo.Service.CertificateJobService;
+import com.example.demo.Service.CertificateTemplateService;
+import com.example.demo.Service.TemplatePreviewService;
+import com.example.demo.Service.TemplateRegistryService;
+import com.example.demo.Service.TokenService;
+import com.example.demo.Service.TokenService.TokenClaims;
+import com.example.demo.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CertificateTemplateControllerTest {
+
+    private static final String SECRET =
+            Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+
+    private final TokenService tokenService =
+            new TokenService(new ObjectMapper(), new SimpleMeterRegistry(), SECRET, 60, 100);
+    private final CertificateCatalogService catalogService = mock(CertificateCatalogService.class);
+    private final CertificateBundleService bundleService = mock(CertificateBundleService.class);
+    private final CertificateTemplateController controller = new CertificateTemplateController(
+            mock(CertificateTemplateService.class), mock(CertificateJobService.class), catalogService, bundleService,
+            mock(TemplatePreviewService.class), mock(TemplateRegistryService.class));
+
+    @BeforeEach
+    void setUp() {
+        when(catalogService.studentKeyOf(42L)).thenReturn("Asha_Rao");
+    }
+
+    @Test
+    void studentCannotLookUpAnotherStudentsCertificates() {
+        TokenClaims student = claims(User.Role.STUDENT);
+
+        assertEquals(HttpStatus.FORBIDDEN,
+                controller.getCertificatesByStudent("Ravi Kumar", 0, 100, student).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.downloadStudentBundle("Ravi Kumar", student).getStatusCode());
+        verify(catalogService, never()).findByStudent(anyString(), anyLong(), anyInt());
+        verify(bundleService, never()).byStudent(anyString());
+    }
+
+    @Test
+    void studentSeesOnlyTheirOwnCertificatesOfASubject() {
+        when(catalogService.findBySubjectForStudent("Mathematics", "Asha_Rao", 0, 100)).thenReturn(List.of());
+
+        assertEquals(HttpStatus.OK,
+                controller.getCertificatesBySubject("Mathematics", 0, 100, claims(User.Role.STUDENT)).getStatusCode());
+        verify(catalogService, never()).findBySubject(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void studentMayLookUpTheirOwnAndStaffAnyone() {
+        when(catalogService.findByStudent(anyString(), anyLong(), anyInt())).thenReturn(List.of());
+
+        assertEquals(HttpStatus.OK,
+                controller.getCertificatesByStudent("Asha Rao", 0, 100, claims(User.Role.STUDENT)).getStatusCode());
+        assertEquals(HttpStatus.OK,
+                controller.getCertificatesByStudent("Ravi Kumar", 0, 100, claims(User.Role.TEACHER)).getStatusCode());
+    }
+
+    private TokenClaims claims(User.Role role) {
+        User user = new User();
+        user.setId(42L);
+        user.setUserId("user42");
+        user.setEmail("asha@example.com");
+        user.setRole(role);
+        return tokenService.verify(tokenService.issue(user)).orElseThrow();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.load;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * End-to-end load driver for a running instance. Start the app with the storage stub so no
+ * request leaves the machine, then run the scenarios against it:
+ *
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.arguments=--storage.backend=stub \
+ *     -Dspring-boot.run.jvmArguments=-Dsun.net.httpserver.nodelay=true
+ * mvn -Pload -DskipTests verify -Dload.scenarios=login,exams,certificates,upload -Dload.concurrency=50
+ * </pre>
+ *
+ * Each scenario runs on its own for {@code duration} seconds with {@code concurrency} closed-loop
+ * clients, after {@code warmup} seconds that are not counted, and reports throughput, error
+ * count and p50/p90/p99/max latency. The {@code generate} scenario queues certificate jobs and
+ * needs {@code --template-id} of an existing template.
+ */
+public class LoadSuite {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final int concurrency;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final String templateId;
+
+    private final String email = "load-" + UUID.randomUUID() + "@example.com";
+    private final String password = "load-test-password";
+    private String token;
+    private long userId;
+    private byte[] image;
+
+    LoadSuite(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8081");
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "50"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        this.templateId = options.getOrDefault("template-id", "");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        List<String> scenarios = Arrays.asList(options.getOrDefault("scenarios", "login,exams,certificates,upload").split(","));
+
+        LoadSuite suite = new LoadSuite(options);
+        suite.prepare();
+        System.out.printf("%-14s %10s %8s %9s %9s %9s %9s%n", "scenario", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (String scenario : scenarios) {
+            Result result = suite.run(scenario.trim());
+            if (result != null) {
+                System.out.println(result);
+            }
+        }
+    }
+
+    /** Signs up the load-test user, logs in once for a token and builds the upload image. */
+    void prepare() throws Exception {
+        send(post("/api/signup", Map.of("name", "Load Test", "email", email, "password", password)));
+        HttpResponse<String> login = send(post("/api/login", Map.of("email", email, "password", password)));
+        if (login.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with " + login.statusCode() + ": " + login.body());
+        }
+        JsonNode user = JSON.readTree(login.body());
+        token = user.path("token").asText();
+        userId = user.path("id").asLong();
+
+        BufferedImage picture = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(picture, "png", png);
+        image = png.toByteArray();
+    }
+
+    Result run(String scenario) throws Exception {
+        Request request = switch (scenario) {
+            case "login" -> () -> post("/api/login", Map.of("email", email, "password", password));
+            case "exams" -> () -> get("/api/exams");
+            case "certificates" -> () -> get("/api/templates/certificates/all?limit=100");
+            case "upload" -> this::upload;
+            case "generate" -> () -> post("/api/templates/generate", List.of(Map.of(
+                    "userId", userId, "templateName", templateId, "subject", "Mathematics", "percentage", "95%")));
+            default -> null;
+        };
+        if (request == null) {
+            System.out.println("Unknown scenario: " + scenario);
+            return null;
+        }
+        if ("generate".equals(scenario) && templateId.isEmpty()) {
+            System.out.println("Skipping generate: pass --template-id");
+            return null;
+        }
+
+        drive(request, warmupSeconds);
+        return new Result(scenario, drive(request, durationSeconds), durationSeconds);
+    }
+
+    private interface Request {
+        HttpRequest build() throws IOException;
+    }
+
+    // Closed loop: each client sends its next request as soon as the previous one completes
+    private List<long[]> drive(Request request, int seconds) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                List<Long> samples = new ArrayList<>();
+                int errors = 0;
+                start.await();
+                while (System.nanoTime() < deadline) {
+                    long began = System.nanoTime();
+                    try {
+                        int status = send(request.build()).statusCode();
+                        if (status >= 400) {
+                            errors++;
+                        }
+                    } catch (IOException e) {
+                        errors++;
+                    }
+                    samples.add(System.nanoTime() - began);
+                }
+                long[] result = new long[samples.size() + 1];
+                result[0] = errors;
+                for (int k = 0; k < samples.size(); k++) {
+                    result[k + 1] = samples.get(k);
+                }
+                return result;
+            }));
+        }
+        start.countDown();
+        List<long[]> results = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            results.add(future.get());
+        }
+        clients.shutdown();
+        return results;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path) {
+        return authorized(path).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) throws IOException {
+        return authorized(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest upload() {
+        String boundary = "load-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        byte[] head = ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"image\"; filename=\"load.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        body.writeBytes(head);
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return authorized("/api/upload/image")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(60));
+        if (token != null && !token.isEmpty()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    static class Result {
+        private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 1.0};
+
+        private final String scenario;
+        private final long errors;
+        private final double throughput;
+        private final double[] latenciesMs = new double[PERCENTILES.length];
+
+        // Each client's array holds its error count first, then one latency in nanos per request
+        Result(String scenario, List<long[]> perClient, int seconds) {
+            this.scenario = scenario;
+            int count = 0;
+            long errorCount = 0;
+            for (long[] samples : perClient) {
+                count += samples.length - 1;
+                errorCount += samples[0];
+            }
+            long[] latencies = new long[count];
+            int next = 0;
+            for (long[] samples : perClient) {
+                System.arraycopy(samples, 1, latencies, next, samples.length - 1);
+                next += samples.length - 1;
+            }
+            Arrays.sort(latencies);
+            this.errors = errorCount;
+            this.throughput = latencies.length / (double) seconds;
+            for (int i = 0; i < PERCENTILES.length && latencies.length > 0; i++) {
+                int index = Math.max(0, (int) Math.ceil(PERCENTILES[i] * latencies.length) - 1);
+                latenciesMs[i] = latencies[index] / 1_000_000.0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s %10.1f %8d %9.1f %9.1f %9.1f %9.1f", scenario, throughput, errors,
+                    latenciesMs[0], latenciesMs[1], latenciesMs[2], latenciesMs[3]);
+        }
+    }
+}
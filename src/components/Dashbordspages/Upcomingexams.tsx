@@ -1,6 +1,7 @@
 
 import React, { useState, useRef, useEffect } from 'react';
 import { Clock, Calendar, Info, Download, Plus, Upload, X, FileText, Check, Image as ImageIcon, Link as LinkIcon } from 'lucide-react';
+import { authHeaders } from '@/lib/auth';
 
 interface Exam {
   id: string;
@@ -82,7 +83,9 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
 
     const fetchTemplates = async () => {
       try {
-        const response = await fetch('http://localhost:8081/api/templates/all');
+        const response = await fetch('http://localhost:8081/api/templates/all', {
+          headers: authHeaders(),
+        });
         if (!response.ok) {
           throw new Error(`Failed to fetch templates: ${response.status}`);
         }
@@ -205,6 +208,7 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
       formData.append('image', file);
       const response = await fetch('http://localhost:8081/api/upload/image', {
         method: 'POST',
+        headers: authHeaders(),
         body: formData,
       });
       if (!response.ok) {
@@ -244,7 +248,7 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
         if (isEditing && editingExamId) {
           const response = await fetch(`http://localhost:8081/api/exams/${editingExamId}`, {
             method: 'PUT',
-            headers: { 'Content-Type': 'application/json' },
+            headers: authHeaders({ 'Content-Type': 'application/json' }),
             body: JSON.stringify(examData),
           });
           if (!response.ok) {
@@ -257,7 +261,7 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
         } else {
           const response = await fetch('http://localhost:8081/api/exams', {
             method: 'POST',
-            headers: { 'Content-Type': 'application/json' },
+            headers: authHeaders({ 'Content-Type': 'application/json' }),
             body: JSON.stringify(examData),
           });
           if (!response.ok) {
@@ -351,6 +355,23 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
     reader.readAsText(file);
   };
 
+  // Polls a certificate job until it finishes; null if it is still running after a few minutes
+  const waitForCertificateJob = async (statusUrl: string) => {
+    const deadline = Date.now() + 5 * 60 * 1000;
+    while (Date.now() < deadline) {
+      const response = await fetch(`http://localhost:8081${statusUrl}`, { headers: authHeaders() });
+      if (!response.ok) {
+        throw new Error(`Failed to read certificate job status: ${response.status}`);
+      }
+      const job = await response.json();
+      if (job.finishedAt) {
+        return job;
+      }
+      await new Promise(resolve => setTimeout(resolve, 2000));
+    }
+    return null;
+  };
+
   const handleGenerateCertificates = async () => {
     if (!selectedExam || !selectedTemplate) return;
     setIsProcessing(true);
@@ -363,7 +384,7 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
     try {
       const response = await fetch('http://localhost:8081/api/templates/generate', {
         method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
+        headers: authHeaders({ 'Content-Type': 'application/json' }),
         body: JSON.stringify(payload),
       });
       if (!response.ok) {
@@ -375,7 +396,16 @@ const UpcomingExams: React.FC<UpcomingExamsProps> = ({ userType }) => {
       if (result.status === 'error') {
         throw new Error(result.message);
       }
-      alert('Certificates generated successfully!');
+      // The server queues the batch (202) and renders it in the background
+      const job = await waitForCertificateJob(result.statusUrl);
+      if (!job) {
+        alert(`Certificate job ${result.jobId} is queued and still running. It will finish in the background.`);
+      } else if (job.status === 'FAILED') {
+        throw new Error(job.lastError || 'the certificate job failed');
+      } else {
+        alert(`Certificates generated: ${job.completedItems} succeeded, ${job.failedItems} failed.`
+          + (job.lastError ? `\nLast error: ${job.lastError}` : ''));
+      }
       setShowCertificateModal(false);
     } catch (error) {
       console.error('Error generating certificates:', error);
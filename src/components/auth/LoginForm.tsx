@@ -2,6 +2,7 @@
 import { useState } from "react";
 import { Link, useNavigate } from "react-router-dom";
 import { Eye, EyeOff } from "lucide-react";
+import { storeSession } from "@/lib/auth";
 
 const LoginForm = () => {
   const navigate = useNavigate();
@@ -38,12 +39,8 @@ const LoginForm = () => {
       // Login successful
       console.log("Login successful", data);
       
-      // Store user data if remember me is checked
-      if (rememberMe) {
-        localStorage.setItem("user", JSON.stringify(data));
-      } else {
-        sessionStorage.setItem("user", JSON.stringify(data));
-      }
+      // Keep the user and the bearer token; later API calls send the token
+      storeSession(data, rememberMe);
 
       // Redirect based on role
       if (role === "admin") {
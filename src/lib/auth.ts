@@ -0,0 +1,34 @@
+// Bearer token issued by POST /api/login, kept next to the user it belongs to
+const TOKEN_KEY = "authToken";
+
+type LoginResponse = {
+  token?: string;
+  tokenType?: string;
+  expiresAt?: string;
+};
+
+export function storeSession(data: LoginResponse, remember: boolean) {
+  clearSession();
+  const storage = remember ? localStorage : sessionStorage;
+  storage.setItem("user", JSON.stringify(data));
+  if (data.token) {
+    storage.setItem(TOKEN_KEY, data.token);
+  }
+}
+
+export function clearSession() {
+  for (const storage of [localStorage, sessionStorage]) {
+    storage.removeItem("user");
+    storage.removeItem(TOKEN_KEY);
+  }
+}
+
+export function getAuthToken(): string | null {
+  return sessionStorage.getItem(TOKEN_KEY) ?? localStorage.getItem(TOKEN_KEY);
+}
+
+// Merges the Authorization header into `headers`; leaves them as they are when logged out
+export function authHeaders(headers: Record<string, string> = {}): Record<string, string> {
+  const token = getAuthToken();
+  return token ? { ...headers, Authorization: `Bearer ${token}` } : headers;
+}